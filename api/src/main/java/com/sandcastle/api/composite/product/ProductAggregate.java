@@ -1,41 +1,71 @@
 package com.sandcastle.api.composite.product;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 public class ProductAggregate {
-    private final int productId;
+    private final Integer productId;
     private final String name;
-    private final int weight;
+    private final Integer weight;
     private final List<RecommendationSummary> recommendations;
     private final List<ReviewSummary> reviews;
     private final ServiceAddresses serviceAddresses;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Integer recommendationsNextCursor;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Integer reviewsNextCursor;
+
+    // Derived from the versions of the parts, used for conditional requests but not sent
+    @JsonIgnore
+    private String etag;
+
     public ProductAggregate() {
-        productId = 0;
+        productId = null;
         name = null;
-        weight = 0;
+        weight = null;
         recommendations = null;
         reviews = null;
         serviceAddresses = null;
+        recommendationsNextCursor = null;
+        reviewsNextCursor = null;
     }
 
     public ProductAggregate(
-            int productId,
+            Integer productId,
             String name,
-            int weight,
+            Integer weight,
             List<RecommendationSummary> recommendations,
             List<ReviewSummary> reviews,
             ServiceAddresses serviceAddresses) {
 
+        this(productId, name, weight, recommendations, reviews, serviceAddresses, null, null);
+    }
+
+    public ProductAggregate(
+            Integer productId,
+            String name,
+            Integer weight,
+            List<RecommendationSummary> recommendations,
+            List<ReviewSummary> reviews,
+            ServiceAddresses serviceAddresses,
+            Integer recommendationsNextCursor,
+            Integer reviewsNextCursor) {
+
         this.productId = productId;
         this.name = name;
         this.weight = weight;
         this.recommendations = recommendations;
         this.reviews = reviews;
         this.serviceAddresses = serviceAddresses;
+        this.recommendationsNextCursor = recommendationsNextCursor;
+        this.reviewsNextCursor = reviewsNextCursor;
     }
 
-    public int getProductId() {
+    public Integer getProductId() {
         return productId;
     }
 
@@ -43,7 +73,7 @@ public class ProductAggregate {
         return name;
     }
 
-    public int getWeight() {
+    public Integer getWeight() {
         return weight;
     }
 
@@ -58,4 +88,20 @@ public class ProductAggregate {
     public ServiceAddresses getServiceAddresses() {
         return serviceAddresses;
     }
+
+    public Integer getRecommendationsNextCursor() {
+        return recommendationsNextCursor;
+    }
+
+    public Integer getReviewsNextCursor() {
+        return reviewsNextCursor;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
 }
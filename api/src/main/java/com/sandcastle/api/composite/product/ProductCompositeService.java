@@ -6,8 +6,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Tag(name = "ProductComposite", description =
         "REST API for composite product information.")
 public interface ProductCompositeService {
@@ -36,7 +39,18 @@ public interface ProductCompositeService {
     /**
      * Sample usage: "curl $HOST:$PORT/product-composite/1".
      *
+     * Use limit to get a page of recommendations and reviews, and pass the
+     * returned next cursors to get the following page:
+     * "curl $HOST:$PORT/product-composite/1?limit=20&reviewsCursor=20".
+     *
+     * Use fields to only get parts of the composite product:
+     * "curl $HOST:$PORT/product-composite/1?fields=name,weight".
+     *
      * @param productId Id of the product
+     * @param limit Max number of recommendations and reviews, all if not set
+     * @param recommendationsCursor recommendationsNextCursor of the previous page
+     * @param reviewsCursor reviewsNextCursor of the previous page
+     * @param fields The fields to return, e.g. "name,weight" or "reviews", all if not set
      * @return the composite product info, if found, else null
      */
     @Operation(
@@ -51,7 +65,76 @@ public interface ProductCompositeService {
     @GetMapping(
             value = "/product-composite/{productId}",
             produces = "application/json")
-    Mono<ProductAggregate> getProduct(@PathVariable int productId);
+    Mono<ProductAggregate> getProduct(
+            @PathVariable int productId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "recommendationsCursor", required = false) Integer recommendationsCursor,
+            @RequestParam(value = "reviewsCursor", required = false) Integer reviewsCursor,
+            @RequestParam(value = "fields", required = false) List<String> fields);
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/product-composite?ids=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the composite product info of the products that were found
+     */
+    @Operation(
+            summary = "${api.product-composite.get-composite-products.description}",
+            description = "${api.product-composite.get-composite-products.notes}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+            @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+    })
+    @GetMapping(
+            value = "/product-composite",
+            produces = "application/json")
+    Flux<ProductAggregate> getProducts(@RequestParam(value = "ids", required = true) List<Integer> productIds);
+
+    /**
+     * Sample usage, for id lists that are too long for a query string.
+     *
+     * curl -X POST $HOST:$PORT/product-composite/batch \
+     *   -H "Content-Type: application/json" --data '[1,2,3]'
+     *
+     * @param productIds Ids of the products
+     * @return the composite product info of the products that were found
+     */
+    @Operation(
+            summary = "${api.product-composite.get-composite-products.description}",
+            description = "${api.product-composite.get-composite-products.notes}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+            @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+    })
+    @PostMapping(
+            value    = "/product-composite/batch",
+            consumes = "application/json",
+            produces = "application/json")
+    Flux<ProductAggregate> getProductsBatch(@RequestBody List<Integer> productIds);
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/product-composite/stream?fromId=1&toId=100000".
+     *
+     * @param fromId First product id of the range, inclusive
+     * @param toId Last product id of the range, inclusive
+     * @return the composite product info of the products in the range, as newline delimited JSON
+     */
+    @Operation(
+            summary = "${api.product-composite.stream-composite-products.description}",
+            description = "${api.product-composite.stream-composite-products.notes}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+            @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+    })
+    @GetMapping(
+            value = "/product-composite/stream",
+            produces = "application/x-ndjson")
+    Flux<ProductAggregate> streamProducts(
+            @RequestParam(value = "fromId", required = true) int fromId,
+            @RequestParam(value = "toId", required = true) int toId);
 
     /**
      * Sample usage: "curl -X DELETE $HOST:$PORT/product-composite/1".
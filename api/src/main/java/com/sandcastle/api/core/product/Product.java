@@ -5,6 +5,7 @@ public class Product {
     private String name;
     private int weight;
     private String serviceAddress;
+    private Integer version;
 
     public Product() {
         productId = 0;
@@ -49,4 +50,12 @@ public class Product {
     public void setServiceAddress(String serviceAddress) {
         this.serviceAddress = serviceAddress;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
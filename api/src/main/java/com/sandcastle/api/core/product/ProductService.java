@@ -2,8 +2,12 @@ package com.sandcastle.api.core.product;
 
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface ProductService {
 
     Mono<Product> createProduct(Product body);
@@ -16,8 +20,33 @@ public interface ProductService {
      */
     @GetMapping(
             value = "/product/{productId}",
-            produces = "application/json")
+            produces = {"application/json", "application/x-jackson-smile"})
     Mono<Product> getProduct(@PathVariable int productId);
 
+    /**
+     * Sample usage: "curl $HOST:$PORT/product?ids=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the products that were found, ordered by productId
+     */
+    @GetMapping(
+            value = "/product",
+            produces = {"application/json", "application/x-jackson-smile"})
+    Flux<Product> getProducts(@RequestParam(value = "ids", required = true) List<Integer> productIds);
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/product/stream?fromId=1&toId=1000".
+     *
+     * @param fromId First product id of the range, inclusive
+     * @param toId Last product id of the range, inclusive
+     * @return the products in the range as newline delimited JSON, ordered by productId
+     */
+    @GetMapping(
+            value = "/product/stream",
+            produces = "application/x-ndjson")
+    Flux<Product> streamProducts(
+            @RequestParam(value = "fromId", required = true) int fromId,
+            @RequestParam(value = "toId", required = true) int toId);
+
     Mono<Void> deleteProduct(int productId);
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ public class Recommendation {
     private int rate;
     private String content;
     private String serviceAddress;
+    private Integer version;
 
     public Recommendation() {
         productId = 0;
@@ -80,4 +81,12 @@ public class Recommendation {
     public void setServiceAddress(String serviceAddress) {
         this.serviceAddress = serviceAddress;
     }
-}
\ No newline at end of file
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+}
@@ -10,6 +10,8 @@ public interface RecommendationService {
 
     Mono<Recommendation> createRecommendation(Recommendation body);
 
+    Flux<Recommendation> createRecommendations(int productId, List<Recommendation> body);
+
     /**
      * Sample usage: "curl $HOST:$PORT/recommendation?productId=1".
      *
@@ -18,9 +20,41 @@ public interface RecommendationService {
      */
     @GetMapping(
             value = "/recommendation",
-            produces = "application/json")
+            params = {"productId", "!productIds", "!cursor", "!limit"},
+            produces = {"application/json", "application/x-jackson-smile"})
     Flux<Recommendation> getRecommendations(
             @RequestParam(value = "productId", required = true) int productId);
 
+    /**
+     * Sample usage: "curl $HOST:$PORT/recommendation?productIds=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the recommendations of the products, grouped by productId
+     */
+    @GetMapping(
+            value = "/recommendation",
+            params = {"productIds", "!productId", "!cursor", "!limit"},
+            produces = {"application/json", "application/x-jackson-smile"})
+    Flux<Recommendation> getRecommendationsForProducts(
+            @RequestParam(value = "productIds", required = true) List<Integer> productIds);
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/recommendation?productId=1&cursor=10&limit=20".
+     * A cursor without a limit is rejected as a bad request.
+     *
+     * @param productId Id of the product
+     * @param cursor The last recommendationId of the previous page, 0 for the first page
+     * @param limit Max number of recommendations to return
+     * @return the recommendations after the cursor, ordered by recommendationId
+     */
+    @GetMapping(
+            value = "/recommendation",
+            params = {"productId", "limit", "!productIds"},
+            produces = {"application/json", "application/x-jackson-smile"})
+    Flux<Recommendation> getRecommendationsPage(
+            @RequestParam(value = "productId", required = true) int productId,
+            @RequestParam(value = "cursor", required = false, defaultValue = "0") int cursor,
+            @RequestParam(value = "limit", required = true) int limit);
+
     Mono<Void> deleteRecommendations(int productId);
 }
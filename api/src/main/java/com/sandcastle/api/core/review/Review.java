@@ -7,6 +7,7 @@ public class Review {
     private String subject;
     private String content;
     private String serviceAddress;
+    private Integer version;
 
     public Review() {
         productId = 0;
@@ -80,5 +81,12 @@ public class Review {
     public void setServiceAddress(String serviceAddress) {
         this.serviceAddress = serviceAddress;
     }
-}
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+}
@@ -11,6 +11,8 @@ public interface ReviewService {
 
     Mono<Review> createReview(Review body);
 
+    Flux<Review> createReviews(int productId, List<Review> body);
+
     /**
      * Sample usage: "curl $HOST:$PORT/review?productId=1".
      *
@@ -19,8 +21,39 @@ public interface ReviewService {
      */
     @GetMapping(
             value = "/review",
-            produces = "application/json")
+            params = {"productId", "!productIds", "!cursor", "!limit"},
+            produces = {"application/json", "application/x-jackson-smile"})
     Flux<Review> getReviews(@RequestParam(value = "productId", required = true) int productId);
 
+    /**
+     * Sample usage: "curl $HOST:$PORT/review?productIds=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the reviews of the products, grouped by productId
+     */
+    @GetMapping(
+            value = "/review",
+            params = {"productIds", "!productId", "!cursor", "!limit"},
+            produces = {"application/json", "application/x-jackson-smile"})
+    Flux<Review> getReviewsForProducts(@RequestParam(value = "productIds", required = true) List<Integer> productIds);
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/review?productId=1&cursor=10&limit=20".
+     * A cursor without a limit is rejected as a bad request.
+     *
+     * @param productId Id of the product
+     * @param cursor The last reviewId of the previous page, 0 for the first page
+     * @param limit Max number of reviews to return
+     * @return the reviews after the cursor, ordered by reviewId
+     */
+    @GetMapping(
+            value = "/review",
+            params = {"productId", "limit", "!productIds"},
+            produces = {"application/json", "application/x-jackson-smile"})
+    Flux<Review> getReviewsPage(
+            @RequestParam(value = "productId", required = true) int productId,
+            @RequestParam(value = "cursor", required = false, defaultValue = "0") int cursor,
+            @RequestParam(value = "limit", required = true) int limit);
+
     Mono<Void> deleteReviews(int productId);
 }
@@ -1,9 +1,11 @@
 package com.sandcastle.api.event;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.ser.ZonedDateTimeSerializer;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import static java.time.ZonedDateTime.now;
 
@@ -11,28 +13,43 @@ public class Event<K, T> {
 
   public enum Type {
     CREATE,
+    CREATE_BATCH,
     DELETE
   }
 
   private final Type eventType;
   private final K key;
   private final T data;
+  private final List<T> batch;
   private final ZonedDateTime eventCreatedAt;
 
   public Event() {
     this.eventType = null;
     this.key = null;
     this.data = null;
+    this.batch = null;
     this.eventCreatedAt = null;
   }
 
   public Event(Type eventType, K key, T data) {
+    this(eventType, key, data, null);
+  }
+
+  private Event(Type eventType, K key, T data, List<T> batch) {
     this.eventType = eventType;
     this.key = key;
     this.data = data;
+    this.batch = batch;
     this.eventCreatedAt = now();
   }
 
+  /**
+   * One event for several entities with the same key, applied by the consumer in one bulk write.
+   */
+  public static <K, T> Event<K, T> batch(K key, List<T> batch) {
+    return new Event<>(Type.CREATE_BATCH, key, null, batch);
+  }
+
   public Type getEventType() {
     return eventType;
   }
@@ -45,6 +62,11 @@ public class Event<K, T> {
     return data;
   }
 
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public List<T> getBatch() {
+    return batch;
+  }
+
   @JsonSerialize(using = ZonedDateTimeSerializer.class)
   public ZonedDateTime getEventCreatedAt() {
     return eventCreatedAt;
@@ -0,0 +1,95 @@
+package com.sandcastle.api.core.recommendation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+class RecommendationServiceMappingTests {
+
+  private final WebTestClient client = WebTestClient.bindToController(new RecommendationServiceStub()).build();
+
+  @Test
+  void eachParameterCombinationHasOneHandler() {
+
+    getAndVerifyHandler("/recommendation?productId=1", "getRecommendations");
+    getAndVerifyHandler("/recommendation?productIds=1,2", "getRecommendationsForProducts");
+    getAndVerifyHandler("/recommendation?productId=1&limit=10", "getRecommendationsPage");
+    getAndVerifyHandler("/recommendation?productId=1&cursor=5&limit=10", "getRecommendationsPage");
+  }
+
+  @Test
+  void ambiguousParametersAreABadRequest() {
+
+    getAndVerifyBadRequest("/recommendation?productIds=1,2&limit=10");
+    getAndVerifyBadRequest("/recommendation?productId=1&productIds=1,2");
+  }
+
+  @Test
+  void cursorWithoutLimitIsABadRequest() {
+
+    getAndVerifyBadRequest("/recommendation?productId=1&cursor=5");
+  }
+
+  private void getAndVerifyHandler(String uri, String handler) {
+    client.get()
+      .uri(uri)
+      .accept(APPLICATION_JSON)
+      .exchange()
+      .expectStatus().isOk()
+      .expectBody()
+      .jsonPath("$[0].author").isEqualTo(handler);
+  }
+
+  private void getAndVerifyBadRequest(String uri) {
+    client.get()
+      .uri(uri)
+      .accept(APPLICATION_JSON)
+      .exchange()
+      .expectStatus().isBadRequest();
+  }
+
+  // Answers with the name of the handler method that was called
+  @RestController
+  static class RecommendationServiceStub implements RecommendationService {
+
+    @Override
+    public Mono<Recommendation> createRecommendation(Recommendation body) {
+      return Mono.empty();
+    }
+
+    @Override
+    public Flux<Recommendation> createRecommendations(int productId, List<Recommendation> body) {
+      return Flux.empty();
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendations(int productId) {
+      return Flux.just(recommendation("getRecommendations"));
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendationsForProducts(List<Integer> productIds) {
+      return Flux.just(recommendation("getRecommendationsForProducts"));
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendationsPage(int productId, int cursor, int limit) {
+      return Flux.just(recommendation("getRecommendationsPage"));
+    }
+
+    @Override
+    public Mono<Void> deleteRecommendations(int productId) {
+      return Mono.empty();
+    }
+
+    private static Recommendation recommendation(String handler) {
+      return new Recommendation(1, 1, handler, 1, "content", null);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.sandcastle.api.core.review;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+class ReviewServiceMappingTests {
+
+  private final WebTestClient client = WebTestClient.bindToController(new ReviewServiceStub()).build();
+
+  @Test
+  void eachParameterCombinationHasOneHandler() {
+
+    getAndVerifyHandler("/review?productId=1", "getReviews");
+    getAndVerifyHandler("/review?productIds=1,2", "getReviewsForProducts");
+    getAndVerifyHandler("/review?productId=1&limit=10", "getReviewsPage");
+    getAndVerifyHandler("/review?productId=1&cursor=5&limit=10", "getReviewsPage");
+  }
+
+  @Test
+  void ambiguousParametersAreABadRequest() {
+
+    getAndVerifyBadRequest("/review?productIds=1,2&limit=10");
+    getAndVerifyBadRequest("/review?productId=1&productIds=1,2");
+  }
+
+  @Test
+  void cursorWithoutLimitIsABadRequest() {
+
+    getAndVerifyBadRequest("/review?productId=1&cursor=5");
+  }
+
+  private void getAndVerifyHandler(String uri, String handler) {
+    client.get()
+      .uri(uri)
+      .accept(APPLICATION_JSON)
+      .exchange()
+      .expectStatus().isOk()
+      .expectBody()
+      .jsonPath("$[0].author").isEqualTo(handler);
+  }
+
+  private void getAndVerifyBadRequest(String uri) {
+    client.get()
+      .uri(uri)
+      .accept(APPLICATION_JSON)
+      .exchange()
+      .expectStatus().isBadRequest();
+  }
+
+  // Answers with the name of the handler method that was called
+  @RestController
+  static class ReviewServiceStub implements ReviewService {
+
+    @Override
+    public Mono<Review> createReview(Review body) {
+      return Mono.empty();
+    }
+
+    @Override
+    public Flux<Review> createReviews(int productId, List<Review> body) {
+      return Flux.empty();
+    }
+
+    @Override
+    public Flux<Review> getReviews(int productId) {
+      return Flux.just(review("getReviews"));
+    }
+
+    @Override
+    public Flux<Review> getReviewsForProducts(List<Integer> productIds) {
+      return Flux.just(review("getReviewsForProducts"));
+    }
+
+    @Override
+    public Flux<Review> getReviewsPage(int productId, int cursor, int limit) {
+      return Flux.just(review("getReviewsPage"));
+    }
+
+    @Override
+    public Mono<Void> deleteReviews(int productId) {
+      return Mono.empty();
+    }
+
+    private static Review review(String handler) {
+      return new Review(1, 1, handler, "subject", "content", null);
+    }
+  }
+}
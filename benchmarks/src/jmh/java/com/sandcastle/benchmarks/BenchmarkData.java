@@ -0,0 +1,39 @@
+package com.sandcastle.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.util.Random;
+
+final class BenchmarkData {
+
+  static final String SERVICE_ADDRESS = "review-7c9f8d6b5-x2k4p/172.18.0.7:8080";
+
+  private BenchmarkData() {
+  }
+
+  // Configured like the ObjectMapper of Spring Boot, which the services use
+  static ObjectMapper bootObjectMapper() {
+    return JsonMapper.builder()
+      .findAndAddModules()
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .build();
+  }
+
+  static String text(Random random, int words) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < words; i++) {
+      if (i > 0) {
+        text.append(' ');
+      }
+      int length = 2 + random.nextInt(8);
+      for (int j = 0; j < length; j++) {
+        text.append((char) ('a' + random.nextInt(26)));
+      }
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,85 @@
+package com.sandcastle.benchmarks;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sandcastle.api.core.review.Review;
+import com.sandcastle.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.sandcastle.api.event.Event.Type.CREATE;
+import static com.sandcastle.benchmarks.BenchmarkData.SERVICE_ADDRESS;
+import static com.sandcastle.benchmarks.BenchmarkData.bootObjectMapper;
+import static com.sandcastle.benchmarks.BenchmarkData.text;
+
+/**
+ * Writing the review events of the composite and reading them in the review service:
+ * a CREATE event with one review, and a CREATE_BATCH event with batchSize reviews.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EventSerializationBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int batchSize;
+
+  private final ObjectMapper mapper = bootObjectMapper();
+  private JavaType eventType;
+
+  private Event<Integer, Review> createEvent;
+  private Event<Integer, Review> batchEvent;
+
+  private byte[] encodedCreateEvent;
+  private byte[] encodedBatchEvent;
+
+  @Setup
+  public void setup() throws IOException {
+
+    eventType = mapper.getTypeFactory().constructParametricType(Event.class, Integer.class, Review.class);
+
+    Random random = new Random(42);
+    List<Review> reviews = new ArrayList<>();
+    for (int i = 1; i <= batchSize; i++) {
+      reviews.add(new Review(1, i, "author " + i, text(random, 8), text(random, 80), SERVICE_ADDRESS));
+    }
+
+    createEvent = new Event<>(CREATE, 1, reviews.get(0));
+    batchEvent = Event.batch(1, reviews);
+
+    encodedCreateEvent = mapper.writeValueAsBytes(createEvent);
+    encodedBatchEvent = mapper.writeValueAsBytes(batchEvent);
+  }
+
+  @Benchmark
+  public byte[] writeCreateEvent() throws IOException {
+    return mapper.writeValueAsBytes(createEvent);
+  }
+
+  @Benchmark
+  public Event<Integer, Review> readCreateEvent() throws IOException {
+    return mapper.readValue(encodedCreateEvent, eventType);
+  }
+
+  @Benchmark
+  public byte[] writeBatchEvent() throws IOException {
+    return mapper.writeValueAsBytes(batchEvent);
+  }
+
+  @Benchmark
+  public Event<Integer, Review> readBatchEvent() throws IOException {
+    return mapper.readValue(encodedBatchEvent, eventType);
+  }
+}
@@ -0,0 +1,85 @@
+package com.sandcastle.benchmarks;
+
+import com.sandcastle.api.core.product.Product;
+import com.sandcastle.api.core.recommendation.Recommendation;
+import com.sandcastle.api.core.review.Review;
+import com.sandcastle.services.product.entities.ProductEntity;
+import com.sandcastle.services.product.services.ProductMapper;
+import com.sandcastle.services.recommendation.entities.RecommendationEntity;
+import com.sandcastle.services.recommendation.services.RecommendationMapper;
+import com.sandcastle.services.review.entities.ReviewEntity;
+import com.sandcastle.services.review.services.ReviewMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.sandcastle.benchmarks.BenchmarkData.text;
+
+/**
+ * The MapStruct mappers of the core services, between the entities read from or
+ * written to the databases and the API objects, for lists of listSize elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MapperBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int listSize;
+
+  private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+  private final RecommendationMapper recommendationMapper = Mappers.getMapper(RecommendationMapper.class);
+  private final ReviewMapper reviewMapper = Mappers.getMapper(ReviewMapper.class);
+
+  private ProductEntity productEntity;
+  private List<RecommendationEntity> recommendationEntities;
+  private List<ReviewEntity> reviewEntities;
+  private List<Review> reviews;
+
+  @Setup
+  public void setup() {
+
+    Random random = new Random(42);
+    productEntity = new ProductEntity(1, "product 1", 123);
+    recommendationEntities = new ArrayList<>();
+    reviewEntities = new ArrayList<>();
+
+    for (int i = 1; i <= listSize; i++) {
+      recommendationEntities.add(new RecommendationEntity(1, i, "author " + i, random.nextInt(5) + 1, text(random, 20)));
+      reviewEntities.add(new ReviewEntity(1, i, "author " + i, text(random, 8), text(random, 80)));
+    }
+    reviews = reviewMapper.entityListToApiList(reviewEntities);
+  }
+
+  @Benchmark
+  public Product productEntityToApi() {
+    return productMapper.entityToApi(productEntity);
+  }
+
+  @Benchmark
+  public List<Recommendation> recommendationEntityListToApiList() {
+    return recommendationMapper.entityListToApiList(recommendationEntities);
+  }
+
+  @Benchmark
+  public List<Review> reviewEntityListToApiList() {
+    return reviewMapper.entityListToApiList(reviewEntities);
+  }
+
+  // Used for the batch inserts of the reviews of a new product
+  @Benchmark
+  public List<ReviewEntity> reviewApiListToEntityList() {
+    return reviewMapper.apiListToEntityList(reviews);
+  }
+}
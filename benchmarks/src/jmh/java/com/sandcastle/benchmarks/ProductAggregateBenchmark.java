@@ -0,0 +1,76 @@
+package com.sandcastle.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sandcastle.api.composite.product.ProductAggregate;
+import com.sandcastle.api.core.product.Product;
+import com.sandcastle.api.core.recommendation.Recommendation;
+import com.sandcastle.api.core.review.Review;
+import com.sandcastle.services.product.composite.services.ProductAggregates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.sandcastle.benchmarks.BenchmarkData.SERVICE_ADDRESS;
+import static com.sandcastle.benchmarks.BenchmarkData.bootObjectMapper;
+import static com.sandcastle.benchmarks.BenchmarkData.text;
+
+/**
+ * The per request CPU work of the composite for a GET: merging the responses of the
+ * core services into a product aggregate, and writing it as the JSON response.
+ *
+ * A product has listSize recommendations and listSize reviews. Reading JSON and the
+ * binary encodings are compared in WireFormatBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProductAggregateBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int listSize;
+
+  private final ObjectMapper mapper = bootObjectMapper();
+
+  private Product product;
+  private List<Recommendation> recommendations;
+  private List<Review> reviews;
+  private ProductAggregate aggregate;
+
+  @Setup
+  public void setup() {
+
+    Random random = new Random(42);
+    product = new Product(1, "product 1", 123, "product-5d8c7b9f4-q7w2e/172.18.0.5:8080");
+    recommendations = new ArrayList<>();
+    reviews = new ArrayList<>();
+
+    for (int i = 1; i <= listSize; i++) {
+      recommendations.add(new Recommendation(1, i, "author " + i, random.nextInt(5) + 1, text(random, 20),
+        "recommendation-6f7d8c9b5-m3n8k/172.18.0.6:8080"));
+      reviews.add(new Review(1, i, "author " + i, text(random, 8), text(random, 80), SERVICE_ADDRESS));
+    }
+    aggregate = createProductAggregate();
+  }
+
+  @Benchmark
+  public ProductAggregate createProductAggregate() {
+    return ProductAggregates.create(product, recommendations, reviews,
+      "product-composite-7b6c5d4f3-z9x8c/172.18.0.4:8080", null, null);
+  }
+
+  @Benchmark
+  public byte[] writeProductAggregate() throws IOException {
+    return mapper.writeValueAsBytes(aggregate);
+  }
+}
@@ -0,0 +1,109 @@
+package com.sandcastle.benchmarks;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.sandcastle.api.composite.product.ProductAggregate;
+import com.sandcastle.api.composite.product.RecommendationSummary;
+import com.sandcastle.api.composite.product.ReviewSummary;
+import com.sandcastle.api.composite.product.ServiceAddresses;
+import com.sandcastle.api.core.review.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.sandcastle.benchmarks.BenchmarkData.text;
+
+/**
+ * Compares JSON with the binary Smile and CBOR encodings for the payloads sent
+ * between the composite and the core services: a list of reviews as returned by
+ * the review service, and a complete product aggregate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WireFormatBenchmark {
+
+  @Param({"json", "smile", "cbor"})
+  private String format;
+
+  @Param({"10", "1000"})
+  private int reviewCount;
+
+  private ObjectMapper mapper;
+  private JavaType reviewListType;
+
+  private List<Review> reviews;
+  private ProductAggregate aggregate;
+
+  private byte[] encodedReviews;
+  private byte[] encodedAggregate;
+
+  @Setup
+  public void setup() throws IOException {
+
+    switch (format) {
+      case "smile":
+        mapper = new SmileMapper();
+        break;
+      case "cbor":
+        mapper = new CBORMapper();
+        break;
+      default:
+        mapper = new ObjectMapper();
+    }
+    reviewListType = mapper.getTypeFactory().constructCollectionType(List.class, Review.class);
+
+    Random random = new Random(42);
+    reviews = new ArrayList<>();
+    List<ReviewSummary> reviewSummaries = new ArrayList<>();
+    List<RecommendationSummary> recommendationSummaries = new ArrayList<>();
+
+    for (int i = 1; i <= reviewCount; i++) {
+      String subject = text(random, 8);
+      String content = text(random, 80);
+      reviews.add(new Review(1, i, "author " + i, subject, content, "review-7c9f8d6b5-x2k4p/172.18.0.7:8080"));
+      reviewSummaries.add(new ReviewSummary(i, "author " + i, subject, content));
+      recommendationSummaries.add(new RecommendationSummary(i, "author " + i, random.nextInt(5) + 1, text(random, 20)));
+    }
+
+    aggregate = new ProductAggregate(1, "product 1", 123, recommendationSummaries, reviewSummaries,
+      new ServiceAddresses("composite/172.18.0.4:8080", "product/172.18.0.5:8080",
+        "review/172.18.0.7:8080", "recommendation/172.18.0.6:8080"));
+
+    encodedReviews = mapper.writeValueAsBytes(reviews);
+    encodedAggregate = mapper.writeValueAsBytes(aggregate);
+  }
+
+  @Benchmark
+  public byte[] encodeReviews() throws IOException {
+    return mapper.writeValueAsBytes(reviews);
+  }
+
+  @Benchmark
+  public List<Review> decodeReviews() throws IOException {
+    return mapper.readValue(encodedReviews, reviewListType);
+  }
+
+  @Benchmark
+  public byte[] encodeAggregate() throws IOException {
+    return mapper.writeValueAsBytes(aggregate);
+  }
+
+  @Benchmark
+  public ProductAggregate decodeAggregate() throws IOException {
+    return mapper.readValue(encodedAggregate, ProductAggregate.class);
+  }
+}
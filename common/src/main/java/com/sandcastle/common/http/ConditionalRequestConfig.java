@@ -0,0 +1,15 @@
+package com.sandcastle.common.http;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+
+@Configuration
+class ConditionalRequestConfig {
+
+  // Makes the current exchange available to ConditionalRequests
+  @Bean
+  ServerWebExchangeContextFilter serverWebExchangeContextFilter() {
+    return new ServerWebExchangeContextFilter();
+  }
+}
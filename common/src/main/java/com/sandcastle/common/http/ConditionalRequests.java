@@ -0,0 +1,55 @@
+package com.sandcastle.common.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.web.filter.reactive.ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Conditional GET support for reactive controller methods.
+ *
+ * The ETag is set on the response, and if it matches the If-None-Match header of the
+ * request the status is set to 304 and the body is dropped before it is serialized.
+ * The current exchange is taken from the Reactor context, where it is put by the
+ * {@link ServerWebExchangeContextFilter}; outside a web request the body passes through.
+ */
+public final class ConditionalRequests {
+
+  private ConditionalRequests() {}
+
+  public static <T> Mono<T> checkNotModified(Mono<T> body, Function<T, String> etag) {
+    return Mono.deferContextual(context -> context.<ServerWebExchange>getOrEmpty(EXCHANGE_CONTEXT_ATTRIBUTE)
+      .map(exchange -> body.filter(value -> {
+        String tag = etag.apply(value);
+        return tag == null || !exchange.checkNotModified(tag);
+      }))
+      .orElse(body));
+  }
+
+  /**
+   * The ETag of a list depends on all elements, so the list is collected before it is sent.
+   */
+  public static <T> Flux<T> checkNotModified(Flux<T> body, Function<List<T>, String> etag) {
+    return Flux.deferContextual(context -> context.<ServerWebExchange>getOrEmpty(EXCHANGE_CONTEXT_ATTRIBUTE)
+      .map(exchange -> body.collectList()
+        .filter(values -> !exchange.checkNotModified(etag.apply(values)))
+        .flatMapMany(Flux::fromIterable))
+      .orElse(body));
+  }
+
+  /**
+   * A weak ETag, the same entity versions may be sent in different encodings, e.g. JSON or Smile.
+   */
+  public static String weakETag(Stream<?> parts) {
+    String value = parts.map(String::valueOf).collect(Collectors.joining(","));
+    return "W/\"" + DigestUtils.md5DigestAsHex(value.getBytes(UTF_8)) + "\"";
+  }
+}
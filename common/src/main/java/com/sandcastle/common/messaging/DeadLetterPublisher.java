@@ -0,0 +1,75 @@
+package com.sandcastle.common.messaging;
+
+import com.sandcastle.api.event.Event;
+import com.sandcastle.api.exceptions.EventProcessingException;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.function.BiPredicate;
+
+/**
+ * Sends the events that a consumer failed on to the DLQ of its consumer group.
+ *
+ * The message carries the headers that the Rabbit binder adds with republishToDlq, i.e. the exception and
+ * where the message was received from. Events that were received from Kafka get the topic, partition and
+ * offset instead. If the received message is unknown, e.g. in a batch, the input destination is used, which
+ * is the exchange and the routing key the composite service publishes with.
+ */
+public class DeadLetterPublisher {
+
+  static final String EXCEPTION_MESSAGE = "x-exception-message";
+  static final String EXCEPTION_STACKTRACE = "x-exception-stacktrace";
+  static final String ORIGINAL_EXCHANGE = "x-original-exchange";
+  static final String ORIGINAL_ROUTING_KEY = "x-original-routingKey";
+  static final String ORIGINAL_TOPIC = "x-original-topic";
+  static final String ORIGINAL_PARTITION = "x-original-partition";
+  static final String ORIGINAL_OFFSET = "x-original-offset";
+
+  private final BiPredicate<String, Message<?>> sender;
+  private final String bindingName;
+  private final String inputDestination;
+
+  /**
+   * @param sender Sends a message to a binding, i.e. StreamBridge::send
+   * @param bindingName The output binding of the DLQ
+   * @param inputDestination The destination of the consumer
+   */
+  public DeadLetterPublisher(BiPredicate<String, Message<?>> sender, String bindingName, String inputDestination) {
+    this.sender = sender;
+    this.bindingName = bindingName;
+    this.inputDestination = inputDestination;
+  }
+
+  public <T> void send(Message<Event<Integer, T>> received, Throwable ex) {
+    MessageHeaders headers = received.getHeaders();
+    MessageBuilder<Event<Integer, T>> message = MessageBuilder.withPayload(received.getPayload())
+      .setHeader(EXCEPTION_MESSAGE, ex.toString())
+      .setHeader(EXCEPTION_STACKTRACE, stackTrace(ex));
+
+    if (headers.containsKey(KafkaHeaders.RECEIVED_TOPIC)) {
+      message
+        .setHeader(ORIGINAL_TOPIC, headers.get(KafkaHeaders.RECEIVED_TOPIC))
+        .setHeader(ORIGINAL_PARTITION, headers.get(KafkaHeaders.RECEIVED_PARTITION_ID))
+        .setHeader(ORIGINAL_OFFSET, headers.get(KafkaHeaders.OFFSET));
+    } else {
+      message
+        .setHeader(ORIGINAL_EXCHANGE, headers.getOrDefault(AmqpHeaders.RECEIVED_EXCHANGE, inputDestination))
+        .setHeader(ORIGINAL_ROUTING_KEY, headers.getOrDefault(AmqpHeaders.RECEIVED_ROUTING_KEY, inputDestination));
+    }
+
+    if (!sender.test(bindingName, message.build())) {
+      throw new EventProcessingException("Failed to send a " + received.getPayload().getEventType() + " event to the DLQ", ex);
+    }
+  }
+
+  private String stackTrace(Throwable ex) {
+    StringWriter stackTrace = new StringWriter();
+    ex.printStackTrace(new PrintWriter(stackTrace));
+    return stackTrace.toString();
+  }
+}
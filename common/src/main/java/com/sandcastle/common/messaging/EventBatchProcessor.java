@@ -0,0 +1,130 @@
+package com.sandcastle.common.messaging;
+
+import com.sandcastle.api.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static com.sandcastle.api.event.Event.Type.CREATE;
+import static com.sandcastle.api.event.Event.Type.CREATE_BATCH;
+
+/**
+ * Applies the events of a batch consumer with as few writes as possible.
+ *
+ * Consecutive CREATE and CREATE_BATCH events are written with one bulk create. Any other event, e.g. a DELETE,
+ * ends such a run and is processed on its own, so the events are applied in the order they were received.
+ *
+ * If a bulk create fails, the entities that were not written are created event by event with the single
+ * event processor, a partly written CREATE_BATCH event only with its remaining entities. Like the consumer
+ * that is not batched, an event that fails is retried and then handed to the dead letter handler, the other
+ * events of the batch are still applied.
+ */
+public class EventBatchProcessor<T> {
+  private static final Logger LOG = LoggerFactory.getLogger(EventBatchProcessor.class);
+
+  private final Function<List<T>, Mono<Void>> bulkCreate;
+  private final ToIntFunction<Throwable> writtenBeforeFailure;
+  private final Function<Event<Integer, T>, Mono<Void>> eventProcessor;
+  private final EventRetry retry;
+  private final BiConsumer<Event<Integer, T>, Throwable> deadLetterHandler;
+
+  /**
+   * @param bulkCreate Creates the entities of a run of events
+   * @param writtenBeforeFailure The number of entities a failed bulk create has written, e.g. 0 if it is transactional
+   * @param eventProcessor Processes one event, like the consumer that is not batched
+   * @param retry Retries an event that the event processor failed on
+   * @param deadLetterHandler Receives the events that still fail after the retries
+   */
+  public EventBatchProcessor(
+      Function<List<T>, Mono<Void>> bulkCreate,
+      ToIntFunction<Throwable> writtenBeforeFailure,
+      Function<Event<Integer, T>, Mono<Void>> eventProcessor,
+      EventRetry retry,
+      BiConsumer<Event<Integer, T>, Throwable> deadLetterHandler) {
+
+    this.bulkCreate = bulkCreate;
+    this.writtenBeforeFailure = writtenBeforeFailure;
+    this.eventProcessor = eventProcessor;
+    this.retry = retry;
+    this.deadLetterHandler = deadLetterHandler;
+  }
+
+  public void process(List<Event<Integer, T>> events) {
+    LOG.info("Process a batch of {} messages...", events.size());
+
+    List<Event<Integer, T>> creates = new ArrayList<>();
+    for (Event<Integer, T> event : events) {
+      if (event.getEventType() == CREATE || event.getEventType() == CREATE_BATCH) {
+        creates.add(event);
+      } else {
+        createAll(creates);
+        creates.clear();
+        processOne(event);
+      }
+    }
+    createAll(creates);
+
+    LOG.info("Batch processing done!");
+  }
+
+  private void createAll(List<Event<Integer, T>> creates) {
+    if (creates.isEmpty()) {
+      return;
+    }
+
+    if (creates.size() == 1) {
+      processOne(creates.get(0));
+      return;
+    }
+
+    List<T> entities = new ArrayList<>();
+    creates.forEach(event -> entities.addAll(entitiesOf(event)));
+
+    try {
+      bulkCreate.apply(entities).block();
+      LOG.info("Created {} entities of {} events with one bulk write", entities.size(), creates.size());
+
+    } catch (RuntimeException ex) {
+      int written = writtenBeforeFailure.applyAsInt(ex);
+      LOG.warn("Bulk create of {} entities failed after {}, processes the remaining events one by one: {}", entities.size(), written, ex.toString());
+
+      int offset = 0;
+      for (Event<Integer, T> event : creates) {
+        List<T> eventEntities = entitiesOf(event);
+        int size = eventEntities.size();
+        if (offset >= written) {
+          processOne(event);
+        } else if (offset + size > written) {
+          processOne(Event.batch(event.getKey(), eventEntities.subList(written - offset, size)));
+        }
+        offset += size;
+      }
+    }
+  }
+
+  private void processOne(Event<Integer, T> event) {
+    try {
+      Mono.defer(() -> eventProcessor.apply(event))
+        .retryWhen(retry.forEvent(event))
+        .block();
+
+    } catch (RuntimeException ex) {
+      LOG.warn("Failed to process a {} event with key {}, sends it to the DLQ: {}", event.getEventType(), event.getKey(), ex.toString());
+      deadLetterHandler.accept(event, ex);
+    }
+  }
+
+  private List<T> entitiesOf(Event<Integer, T> event) {
+    if (event.getEventType() == CREATE_BATCH) {
+      return event.getBatch() == null ? Collections.emptyList() : event.getBatch();
+    }
+    return Collections.singletonList(event.getData());
+  }
+}
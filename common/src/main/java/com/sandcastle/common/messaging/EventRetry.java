@@ -0,0 +1,56 @@
+package com.sandcastle.common.messaging;
+
+import com.sandcastle.api.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Retries a failed event like the binder retries a message, with the maxAttempts and backOff* consumer
+ * properties of a binding.
+ *
+ * The first retry waits initialInterval, every further one multiplier times longer, up to maxInterval.
+ * Like the backoff of the binder, and unlike Retry.backoff of Reactor, the intervals are not randomized.
+ */
+public class EventRetry {
+  private static final Logger LOG = LoggerFactory.getLogger(EventRetry.class);
+
+  private final int maxAttempts;
+  private final Duration initialInterval;
+  private final double multiplier;
+  private final Duration maxInterval;
+
+  /**
+   * @param maxAttempts Attempts per event, including the first one
+   */
+  public EventRetry(int maxAttempts, Duration initialInterval, double multiplier, Duration maxInterval) {
+    this.maxAttempts = maxAttempts;
+    this.initialInterval = initialInterval;
+    this.multiplier = multiplier;
+    this.maxInterval = maxInterval;
+  }
+
+  /**
+   * The retry of one event, it fails with the error of the last attempt.
+   */
+  public Retry forEvent(Event<?, ?> event) {
+    return Retry.from(signals -> signals.concatMap(signal -> {
+      if (signal.totalRetries() >= maxAttempts - 1L) {
+        return Mono.error(signal.failure());
+      }
+
+      Duration backOff = backOff(signal.totalRetries());
+      LOG.warn("Retries a {} event with key {} in {} ms, attempt {}: {}",
+        event.getEventType(), event.getKey(), backOff.toMillis(), signal.totalRetries() + 2, signal.failure().toString());
+      return Mono.delay(backOff);
+    }));
+  }
+
+  Duration backOff(long retries) {
+    double millis = initialInterval.toMillis() * Math.pow(multiplier, retries);
+    return millis < maxInterval.toMillis() ? Duration.ofMillis((long) millis) : maxInterval;
+  }
+}
@@ -0,0 +1,128 @@
+package com.sandcastle.common.messaging;
+
+import com.rabbitmq.client.Channel;
+import com.sandcastle.api.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Processes the events of a reactive consumer without blocking the listener thread of the binder.
+ *
+ * The events are spread over a fixed number of lanes by their key, i.e. the productId. The lanes run
+ * concurrently, the events of a lane one after the other, so the events of a product are applied in order.
+ *
+ * Since the binder neither retries nor dead-letters reactive consumers, a failed event is retried, see EventRetry,
+ * and then handed to the dead letter handler. A message is only acknowledged after that, with a manual
+ * acknowledgement of the Rabbit or the Kafka binder.
+ *
+ * A message that could not be dead-lettered is rejected and redelivered by Rabbit. Kafka can only commit the
+ * offsets up to the first record that is not acknowledged, and only the consumer thread can seek back to it.
+ * So the consumer is stopped instead, the records from that offset on are redelivered once the partition is
+ * assigned again, to another instance or after a restart.
+ */
+public class EventStreamProcessor<T> {
+  private static final Logger LOG = LoggerFactory.getLogger(EventStreamProcessor.class);
+
+  private final Function<Event<Integer, T>, Mono<Void>> eventProcessor;
+  private final BiConsumer<Message<Event<Integer, T>>, Throwable> deadLetterHandler;
+  private final EventRetry retry;
+  private final int concurrency;
+  private final Runnable stopConsumer;
+
+  /**
+   * @param eventProcessor Processes one event
+   * @param deadLetterHandler Receives the messages whose event still fails after the retries
+   * @param retry Retries a failed event
+   * @param concurrency Number of lanes, i.e. events that are processed at the same time
+   * @param stopConsumer Stops the Kafka consumer if a record can neither be processed nor dead-lettered
+   */
+  public EventStreamProcessor(
+      Function<Event<Integer, T>, Mono<Void>> eventProcessor,
+      BiConsumer<Message<Event<Integer, T>>, Throwable> deadLetterHandler,
+      EventRetry retry,
+      int concurrency,
+      Runnable stopConsumer) {
+
+    this.eventProcessor = eventProcessor;
+    this.deadLetterHandler = deadLetterHandler;
+    this.retry = retry;
+    this.concurrency = concurrency;
+    this.stopConsumer = stopConsumer;
+  }
+
+  // The number of groups is fixed, so every group gets a subscriber and groupBy cannot stall
+  public Mono<Void> process(Flux<Message<Event<Integer, T>>> messages) {
+    return messages
+      .groupBy(message -> Math.floorMod(Objects.hashCode(message.getPayload().getKey()), concurrency))
+      .flatMap(lane -> lane.concatMap(this::processMessage), concurrency)
+      .then();
+  }
+
+  private Mono<Void> processMessage(Message<Event<Integer, T>> message) {
+    Event<Integer, T> event = message.getPayload();
+
+    return Mono.defer(() -> eventProcessor.apply(event))
+      .retryWhen(retry.forEvent(event))
+      .onErrorResume(ex -> Mono.fromRunnable(() -> {
+        LOG.warn("Failed to process a {} event with key {}, sends it to the DLQ: {}", event.getEventType(), event.getKey(), ex.toString());
+        deadLetterHandler.accept(message, ex);
+      }))
+      .then(Mono.fromRunnable(() -> acknowledge(message.getHeaders())))
+      // An error would end the subscription to the binding
+      .onErrorResume(ex -> {
+        LOG.error("Failed to process a {} event with key {}, it is not acknowledged", event.getEventType(), event.getKey(), ex);
+        reject(message.getHeaders());
+        return Mono.empty();
+      })
+      .then();
+  }
+
+  private void acknowledge(MessageHeaders headers) {
+    Acknowledgment acknowledgment = headers.get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class);
+    if (acknowledgment != null) {
+      acknowledgment.acknowledge();
+      return;
+    }
+
+    Channel channel = headers.get(AmqpHeaders.CHANNEL, Channel.class);
+    Long deliveryTag = headers.get(AmqpHeaders.DELIVERY_TAG, Long.class);
+    if (channel != null && deliveryTag != null) {
+      try {
+        channel.basicAck(deliveryTag, false);
+      } catch (IOException ex) {
+        throw new IllegalStateException("Failed to acknowledge a message", ex);
+      }
+    }
+  }
+
+  private void reject(MessageHeaders headers) {
+    if (headers.containsKey(KafkaHeaders.ACKNOWLEDGMENT)) {
+      LOG.error("Stops the consumer, the records from the offset of partition {} of {} on are redelivered once it is assigned again",
+        headers.get(KafkaHeaders.RECEIVED_PARTITION_ID), headers.get(KafkaHeaders.RECEIVED_TOPIC));
+      stopConsumer.run();
+      return;
+    }
+
+    Channel channel = headers.get(AmqpHeaders.CHANNEL, Channel.class);
+    Long deliveryTag = headers.get(AmqpHeaders.DELIVERY_TAG, Long.class);
+    if (channel != null && deliveryTag != null) {
+      try {
+        channel.basicNack(deliveryTag, false, true);
+      } catch (IOException ex) {
+        LOG.error("Failed to reject a message", ex);
+      }
+    }
+  }
+}
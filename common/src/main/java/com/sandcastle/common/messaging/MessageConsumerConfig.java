@@ -0,0 +1,111 @@
+package com.sandcastle.common.messaging;
+
+import com.sandcastle.api.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.stream.binding.BindingsLifecycleController;
+import org.springframework.cloud.stream.config.ListenerContainerCustomizer;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * The message consumers of the core services, they consume the messageProcessor-in-0 binding.
+ *
+ * The binder neither retries nor dead-letters a reactive or a batch consumer, so the events are retried with the retry
+ * settings of the binding and then sent to the DLQ of its consumer group, see messaging.yml.
+ */
+@Configuration
+@ConditionalOnProperty("spring.cloud.stream.bindings.messageProcessor-in-0.destination")
+public class MessageConsumerConfig {
+  private static final Logger LOG = LoggerFactory.getLogger(MessageConsumerConfig.class);
+
+  private static final String INPUT_BINDING = "messageProcessor-in-0";
+  private static final String DLQ_BINDING = "messageProcessorDlq";
+
+  private final BindingsLifecycleController bindingsLifecycleController;
+  private final DeadLetterPublisher deadLetterPublisher;
+  private final EventRetry retry;
+  private final int concurrency;
+
+  @Autowired
+  public MessageConsumerConfig(
+    StreamBridge streamBridge,
+    BindingsLifecycleController bindingsLifecycleController,
+    @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.destination}") String destination,
+    @Value("${app.messaging.concurrency:8}") int concurrency,
+    @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.maxAttempts:3}") int maxAttempts,
+    @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.backOffInitialInterval:1000}") long backOffInitialInterval,
+    @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.backOffMultiplier:2.0}") double backOffMultiplier,
+    @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.backOffMaxInterval:10000}") long backOffMaxInterval) {
+
+    this.bindingsLifecycleController = bindingsLifecycleController;
+    this.deadLetterPublisher = new DeadLetterPublisher(streamBridge::send, DLQ_BINDING, destination);
+    this.retry = new EventRetry(maxAttempts, Duration.ofMillis(backOffInitialInterval), backOffMultiplier, Duration.ofMillis(backOffMaxInterval));
+    this.concurrency = concurrency;
+  }
+
+  /**
+   * The processor of a reactive consumer, see EventStreamProcessor.
+   */
+  public <T> EventStreamProcessor<T> streamProcessor(Function<Event<Integer, T>, Mono<Void>> eventProcessor) {
+    return new EventStreamProcessor<>(
+      eventProcessor,
+      deadLetterPublisher::send,
+      retry,
+      concurrency,
+      this::stopConsumer);
+  }
+
+  /**
+   * The processor of a batch consumer, see EventBatchProcessor and the batch_consumer profile.
+   *
+   * @param writtenBeforeFailure The number of entities a failed bulk create has written, e.g. 0 if it is transactional
+   */
+  public <T> EventBatchProcessor<T> batchProcessor(
+    Function<List<T>, Mono<Void>> bulkCreate,
+    ToIntFunction<Throwable> writtenBeforeFailure,
+    Function<Event<Integer, T>, Mono<Void>> eventProcessor) {
+
+    // The messages of the events in a batch are not known
+    return new EventBatchProcessor<>(
+      bulkCreate,
+      writtenBeforeFailure,
+      eventProcessor,
+      retry,
+      (event, ex) -> deadLetterPublisher.send(MessageBuilder.withPayload(event).build(), ex));
+  }
+
+  // The events complete out of order, Kafka commits an offset once the records before it are acknowledged as well
+  @Bean
+  public ListenerContainerCustomizer<AbstractMessageListenerContainer<?, ?>> kafkaAsyncAcks() {
+    return (container, destination, group) -> {
+      if (container.getContainerProperties().getAckMode() == ContainerProperties.AckMode.MANUAL) {
+        container.getContainerProperties().setAsyncAcks(true);
+      }
+    };
+  }
+
+  // Not on the thread of the event, it may be the consumer thread, which the container waits for when it stops
+  private void stopConsumer() {
+    Mono.fromRunnable(() -> bindingsLifecycleController.stop(INPUT_BINDING))
+      .subscribeOn(Schedulers.boundedElastic())
+      .subscribe(
+        v -> {},
+        ex -> LOG.error("Failed to stop the {} binding", INPUT_BINDING, ex),
+        () -> LOG.warn("Stopped the {} binding", INPUT_BINDING));
+  }
+}
@@ -0,0 +1,25 @@
+package com.sandcastle.common.messaging;
+
+import com.mongodb.MongoBulkWriteException;
+
+/**
+ * The bulk creates of the Mongo services, see EventBatchProcessor.
+ */
+public final class MongoBulkWrites {
+
+  private MongoBulkWrites() {
+  }
+
+  /**
+   * The documents a failed saveAll has inserted. It inserts with an ordered insertMany, so the documents
+   * before the first write error are stored, 0 if the insertMany was not sent.
+   */
+  public static int insertedBeforeFailure(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof MongoBulkWriteException) {
+        return ((MongoBulkWriteException) cause).getWriteErrors().get(0).getIndex();
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,121 @@
+package com.sandcastle.common.scheduling;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Schedulers for blocking work, e.g. JDBC calls, selected by the app.scheduler.mode property.
+ *
+ * <ul>
+ *   <li>{@code boundedElastic}, the default: a bounded elastic pool of platform threads with a task queue.</li>
+ *   <li>{@code virtual}: one virtual thread per task, with at most maxConcurrency tasks running at the
+ *   same time, e.g. the size of the connection pool they use. Tasks over the limit wait on a semaphore,
+ *   which only parks their virtual thread.</li>
+ * </ul>
+ *
+ * The code is compiled for Java 17, so virtual threads are looked up at runtime. On a runtime without
+ * them, i.e. before Java 21, the virtual mode falls back to the bounded elastic pool. The Docker images
+ * run Java 17, so there it always falls back.
+ */
+public final class BlockingSchedulers {
+    private static final Logger LOG = LoggerFactory.getLogger(BlockingSchedulers.class);
+
+    public static final String BOUNDED_ELASTIC = "boundedElastic";
+    public static final String VIRTUAL = "virtual";
+
+    private BlockingSchedulers() {
+    }
+
+    public static Scheduler create(String mode, String name, int threadPoolSize, int taskQueueSize, int maxConcurrency) {
+
+        if (VIRTUAL.equals(mode)) {
+            ExecutorService executor = newVirtualThreadPerTaskExecutor(name);
+            if (executor != null) {
+                LOG.info("Creates a {} scheduler with virtual threads, max concurrency = {}", name, maxConcurrency);
+                return Schedulers.fromExecutorService(new ConcurrencyLimitedExecutorService(executor, maxConcurrency), name);
+            }
+            LOG.warn("Virtual threads are not available on Java {}, the {} scheduler falls back to a bounded elastic pool",
+                    Runtime.version().feature(), name);
+
+        } else if (!BOUNDED_ELASTIC.equals(mode)) {
+            throw new IllegalArgumentException("Invalid scheduler mode: " + mode + ", expected " + BOUNDED_ELASTIC + " or " + VIRTUAL);
+        }
+
+        LOG.info("Creates a {} scheduler with thread pool size = {}", name, threadPoolSize);
+        return Schedulers.newBoundedElastic(threadPoolSize, taskQueueSize, name);
+    }
+
+    // Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory())
+    private static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    static class ConcurrencyLimitedExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        ConcurrencyLimitedExecutorService(ExecutorService delegate, int maxConcurrency) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            delegate.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
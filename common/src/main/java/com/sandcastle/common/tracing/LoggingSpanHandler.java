@@ -0,0 +1,30 @@
+package com.sandcastle.common.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs every finished span, an exporter for local testing that needs no tracing backend.
+ *
+ * Spans are exported to every SpanHandler bean, so this one can run next to the Zipkin
+ * exporter, which is enabled with spring.zipkin.enabled.
+ */
+public class LoggingSpanHandler extends SpanHandler {
+  private static final Logger LOG = LoggerFactory.getLogger(LoggingSpanHandler.class);
+
+  @Override
+  public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+    if (cause != Cause.FINISHED) {
+      return true;
+    }
+
+    long durationMicros = span.finishTimestamp() - span.startTimestamp();
+    LOG.info("Span {} {} {}: traceId={}, spanId={}, parentId={}, remote={}, duration={} ms, tags={}, error={}",
+      span.localServiceName(), span.kind(), span.name(), span.traceId(), span.id(), span.parentId(),
+      span.remoteServiceName(), durationMicros / 1000.0, span.tags(), span.error());
+    return true;
+  }
+}
@@ -0,0 +1,17 @@
+package com.sandcastle.common.tracing;
+
+import brave.handler.SpanHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+class TracingConfig {
+
+  // Finished spans are logged with app.tracing.log.enabled, which the dev profile sets, see tracing.yml
+  @Bean
+  @ConditionalOnProperty(name = "app.tracing.log.enabled", havingValue = "true")
+  SpanHandler loggingSpanHandler() {
+    return new LoggingSpanHandler();
+  }
+}
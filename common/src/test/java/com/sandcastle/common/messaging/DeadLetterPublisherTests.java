@@ -0,0 +1,85 @@
+package com.sandcastle.common.messaging;
+
+import com.sandcastle.api.event.Event;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.sandcastle.api.event.Event.Type.CREATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadLetterPublisherTests {
+
+  private final List<Message<?>> sent = new ArrayList<>();
+  private boolean sendSucceeds = true;
+
+  private final DeadLetterPublisher publisher = new DeadLetterPublisher((binding, message) -> {
+    assertEquals("messageProcessorDlq", binding);
+    sent.add(message);
+    return sendSucceeds;
+  }, "messageProcessorDlq", "products");
+
+  @Test
+  void rabbitMessagesKeepWhereTheyWereReceivedFrom() {
+    publisher.send(MessageBuilder.withPayload(create())
+      .setHeader(AmqpHeaders.RECEIVED_EXCHANGE, "products")
+      .setHeader(AmqpHeaders.RECEIVED_ROUTING_KEY, "products-1")
+      .build(), new IllegalStateException("duplicate key"));
+
+    MessageHeaders headers = sentMessage().getHeaders();
+    assertEquals("java.lang.IllegalStateException: duplicate key", headers.get(DeadLetterPublisher.EXCEPTION_MESSAGE));
+    assertTrue(headers.get(DeadLetterPublisher.EXCEPTION_STACKTRACE, String.class).contains("DeadLetterPublisherTests"));
+    assertEquals("products", headers.get(DeadLetterPublisher.ORIGINAL_EXCHANGE));
+    assertEquals("products-1", headers.get(DeadLetterPublisher.ORIGINAL_ROUTING_KEY));
+  }
+
+  @Test
+  void kafkaRecordsKeepTheirOffset() {
+    publisher.send(MessageBuilder.withPayload(create())
+      .setHeader(KafkaHeaders.RECEIVED_TOPIC, "products")
+      .setHeader(KafkaHeaders.RECEIVED_PARTITION_ID, 1)
+      .setHeader(KafkaHeaders.OFFSET, 42L)
+      .build(), new IllegalStateException("duplicate key"));
+
+    MessageHeaders headers = sentMessage().getHeaders();
+    assertEquals("products", headers.get(DeadLetterPublisher.ORIGINAL_TOPIC));
+    assertEquals(1, headers.get(DeadLetterPublisher.ORIGINAL_PARTITION));
+    assertEquals(42L, headers.get(DeadLetterPublisher.ORIGINAL_OFFSET));
+    assertFalse(headers.containsKey(DeadLetterPublisher.ORIGINAL_ROUTING_KEY));
+  }
+
+  @Test
+  void eventsOfABatchGetTheInputDestination() {
+    publisher.send(MessageBuilder.withPayload(create()).build(), new IllegalStateException("duplicate key"));
+
+    assertEquals("products", sentMessage().getHeaders().get(DeadLetterPublisher.ORIGINAL_ROUTING_KEY));
+  }
+
+  @Test
+  void failedSendIsAnError() {
+    sendSucceeds = false;
+
+    Message<Event<Integer, String>> message = MessageBuilder.withPayload(create()).build();
+    IllegalStateException ex = new IllegalStateException("duplicate key");
+
+    assertThrows(RuntimeException.class, () -> publisher.send(message, ex));
+  }
+
+  private Event<Integer, String> create() {
+    return new Event<>(CREATE, 1, "a");
+  }
+
+  private Message<?> sentMessage() {
+    assertEquals(1, sent.size());
+    return sent.get(0);
+  }
+}
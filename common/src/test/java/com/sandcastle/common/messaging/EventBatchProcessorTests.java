@@ -0,0 +1,122 @@
+package com.sandcastle.common.messaging;
+
+import com.sandcastle.api.event.Event;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static com.sandcastle.api.event.Event.Type.CREATE;
+import static com.sandcastle.api.event.Event.Type.DELETE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventBatchProcessorTests {
+
+  private final List<String> writes = new ArrayList<>();
+  private final List<String> deadLetters = new ArrayList<>();
+  private final EventRetry retry = new EventRetry(3, Duration.ofMillis(1), 2.0, Duration.ofMillis(10));
+
+  @Test
+  void consecutiveCreatesAreWrittenWithOneBulkCreate() {
+
+    EventBatchProcessor<String> processor = processor(entities -> Mono.fromRunnable(() -> writes.add("bulk " + entities)), ex -> 0);
+
+    processor.process(List.of(
+      create(1, "a"),
+      Event.batch(1, List.of("b", "c")),
+      new Event<>(DELETE, 2, null),
+      create(3, "d"),
+      create(3, "e")));
+
+    assertEquals(List.of("bulk [a, b, c]", "delete 2", "bulk [d, e]"), writes);
+    assertEquals(List.of(), deadLetters);
+  }
+
+  @Test
+  void failedBulkCreateFallsBackToSingleEvents() {
+
+    // The first entity is written before the bulk create fails on "x"
+    EventBatchProcessor<String> processor = processor(entities -> Mono.error(new IllegalStateException("duplicate key")), ex -> 1);
+
+    processor.process(List.of(
+      create(1, "a"),
+      create(2, "x"),
+      Event.batch(3, List.of("b", "c"))));
+
+    assertEquals(List.of("create x", "create x", "create x", "create [b, c]"), writes);
+    assertEquals(List.of("x"), deadLetters);
+  }
+
+  @Test
+  void partlyWrittenBatchEventIsCompletedWithItsRemainingEntities() {
+
+    // The bulk create fails after "a" and "b", the first entity of the CREATE_BATCH event
+    EventBatchProcessor<String> processor = processor(entities -> Mono.error(new IllegalStateException("connection reset")), ex -> 2);
+
+    processor.process(List.of(
+      create(1, "a"),
+      Event.batch(2, List.of("b", "c", "d")),
+      create(3, "e")));
+
+    assertEquals(List.of("create [c, d]", "create e"), writes);
+    assertEquals(List.of(), deadLetters);
+  }
+
+  @Test
+  void transientFailuresOfSingleEventsAreRetried() {
+
+    AtomicInteger attempts = new AtomicInteger();
+    EventBatchProcessor<String> processor = new EventBatchProcessor<>(
+      entities -> Mono.error(new IllegalStateException("bulk create failed")),
+      ex -> 0,
+      event -> Mono.fromRunnable(() -> {
+        if (attempts.incrementAndGet() < 3) {
+          throw new IllegalStateException("connection reset");
+        }
+        writes.add("create " + event.getData());
+      }),
+      retry,
+      (event, ex) -> deadLetters.add(event.getData()));
+
+    processor.process(List.of(create(1, "a")));
+
+    assertEquals(3, attempts.get());
+    assertEquals(List.of("create a"), writes);
+    assertEquals(List.of(), deadLetters);
+  }
+
+  private EventBatchProcessor<String> processor(
+    Function<List<String>, Mono<Void>> bulkCreate,
+    ToIntFunction<Throwable> writtenBeforeFailure) {
+
+    return new EventBatchProcessor<>(
+      bulkCreate,
+      writtenBeforeFailure,
+      event -> Mono.fromRunnable(() -> {
+        switch (event.getEventType()) {
+          case CREATE:
+            writes.add("create " + event.getData());
+            if (event.getData().equals("x")) {
+              throw new IllegalStateException("duplicate key");
+            }
+            break;
+          case CREATE_BATCH:
+            writes.add("create " + event.getBatch());
+            break;
+          default:
+            writes.add("delete " + event.getKey());
+        }
+      }),
+      retry,
+      (event, ex) -> deadLetters.add(event.getData()));
+  }
+
+  private Event<Integer, String> create(int key, String data) {
+    return new Event<>(CREATE, key, data);
+  }
+}
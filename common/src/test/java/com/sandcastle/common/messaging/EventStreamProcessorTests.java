@@ -0,0 +1,126 @@
+package com.sandcastle.common.messaging;
+
+import com.sandcastle.api.event.Event;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.sandcastle.api.event.Event.Type.CREATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class EventStreamProcessorTests {
+
+  private final List<String> processed = Collections.synchronizedList(new ArrayList<>());
+  private final List<String> deadLetters = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicInteger consumerStops = new AtomicInteger();
+
+  @Test
+  void eventsOfAKeyAreProcessedInOrder() {
+
+    // The first event of each key is the slowest, a later one of the same key must not overtake it
+    EventStreamProcessor<String> processor = processor(event -> Mono.delay(Duration.ofMillis(event.getData().endsWith("1") ? 50 : 1))
+      .doOnNext(tick -> processed.add(event.getData()))
+      .then(), 3);
+
+    processor.process(Flux.just(
+      message(create(1, "a1")), message(create(2, "b1")), message(create(1, "a2")),
+      message(create(2, "b2")), message(create(1, "a3")))).block();
+
+    assertEquals(List.of("a1", "a2", "a3"), processed.stream().filter(data -> data.startsWith("a")).toList());
+    assertEquals(List.of("b1", "b2"), processed.stream().filter(data -> data.startsWith("b")).toList());
+    assertEquals(List.of(), deadLetters);
+  }
+
+  @Test
+  void failedEventsAreRetriedThenDeadLetteredAndAcknowledged() {
+
+    AtomicInteger attempts = new AtomicInteger();
+    EventStreamProcessor<String> processor = processor(event -> Mono.fromRunnable(() -> {
+      if (event.getData().equals("x")) {
+        attempts.incrementAndGet();
+        throw new IllegalStateException("duplicate key");
+      }
+      processed.add(event.getData());
+    }), 2);
+
+    Acknowledgment failedAck = mock(Acknowledgment.class);
+    Acknowledgment processedAck = mock(Acknowledgment.class);
+
+    processor.process(Flux.just(
+      acknowledged(message(create(1, "x")), failedAck),
+      acknowledged(message(create(2, "a")), processedAck))).block();
+
+    assertEquals(3, attempts.get());
+    assertEquals(List.of("a"), processed);
+    assertEquals(List.of("x"), deadLetters);
+    assertEquals(0, consumerStops.get());
+    verify(failedAck, times(1)).acknowledge();
+    verify(processedAck, times(1)).acknowledge();
+  }
+
+  @Test
+  void kafkaConsumerIsStoppedIfARecordCannotBeDeadLettered() {
+
+    EventStreamProcessor<String> processor = new EventStreamProcessor<>(
+      event -> Mono.error(new IllegalStateException("duplicate key")),
+      (message, ex) -> {
+        throw new IllegalStateException("DLQ not available");
+      },
+      new EventRetry(1, Duration.ofMillis(1), 2.0, Duration.ofMillis(10)),
+      2,
+      consumerStops::incrementAndGet);
+
+    Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+    processor.process(Flux.just(acknowledged(message(create(1, "x")), acknowledgment))).block();
+
+    verify(acknowledgment, never()).acknowledge();
+    assertEquals(1, consumerStops.get());
+  }
+
+  @Test
+  void retriesBackOffLikeTheBinder() {
+
+    EventRetry retry = new EventRetry(5, Duration.ofMillis(500), 3.0, Duration.ofMillis(2000));
+
+    assertEquals(Duration.ofMillis(500), retry.backOff(0));
+    assertEquals(Duration.ofMillis(1500), retry.backOff(1));
+    assertEquals(Duration.ofMillis(2000), retry.backOff(2));
+  }
+
+  private EventStreamProcessor<String> processor(Function<Event<Integer, String>, Mono<Void>> eventProcessor, int concurrency) {
+    return new EventStreamProcessor<>(
+      eventProcessor,
+      (message, ex) -> deadLetters.add(message.getPayload().getData()),
+      new EventRetry(3, Duration.ofMillis(1), 2.0, Duration.ofMillis(10)),
+      concurrency,
+      consumerStops::incrementAndGet);
+  }
+
+  private Event<Integer, String> create(int key, String data) {
+    return new Event<>(CREATE, key, data);
+  }
+
+  private Message<Event<Integer, String>> message(Event<Integer, String> event) {
+    return MessageBuilder.withPayload(event).build();
+  }
+
+  private Message<Event<Integer, String>> acknowledged(Message<Event<Integer, String>> message, Acknowledgment acknowledgment) {
+    return MessageBuilder.fromMessage(message).setHeader(KafkaHeaders.ACKNOWLEDGMENT, acknowledgment).build();
+  }
+}
@@ -0,0 +1,66 @@
+package com.sandcastle.common.scheduling;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockingSchedulersTests {
+
+  @Test
+  void noMoreThanMaxConcurrencyTasksRunAtTheSameTime() throws InterruptedException {
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(50);
+
+    // A thread per task, like the virtual thread executor
+    ExecutorService executor = new BlockingSchedulers.ConcurrencyLimitedExecutorService(Executors.newCachedThreadPool(), 3);
+    for (int i = 0; i < 50; i++) {
+      executor.execute(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(5);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        done.countDown();
+      });
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(3, maxRunning.get());
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void virtualModeRunsTasksOnAnyRuntime() {
+
+    Scheduler scheduler = BlockingSchedulers.create(BlockingSchedulers.VIRTUAL, "test-pool", 2, 10, 2);
+
+    assertEquals(10, Flux.range(1, 10)
+      .flatMap(i -> Mono.fromCallable(() -> i).subscribeOn(scheduler))
+      .count()
+      .block());
+
+    scheduler.dispose();
+  }
+
+  @Test
+  void invalidModeIsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> BlockingSchedulers.create("platform", "test-pool", 2, 10, 2));
+  }
+}
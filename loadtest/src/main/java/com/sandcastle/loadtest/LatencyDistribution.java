@@ -0,0 +1,36 @@
+package com.sandcastle.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A log-normal latency distribution, given by its median and 99th percentile.
+ *
+ * Service latencies are usually skewed to the right, most responses are close to the median
+ * and a few are much slower. A p99 equal to the median gives a constant latency.
+ */
+public class LatencyDistribution {
+
+    // The 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    private final double mu;
+    private final double sigma;
+    private final boolean zero;
+
+    public LatencyDistribution(Duration median, Duration p99) {
+        if (p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("p99 " + p99 + " is less than the median " + median);
+        }
+        this.zero = median.isZero();
+        this.mu = zero ? 0 : Math.log(median.toNanos());
+        this.sigma = zero ? 0 : Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+    }
+
+    public Duration next() {
+        if (zero) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos((long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+}
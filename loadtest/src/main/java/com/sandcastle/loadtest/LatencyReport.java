@@ -0,0 +1,103 @@
+package com.sandcastle.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and outcome counts per operation.
+ *
+ * Latencies are recorded by the threads that complete the requests, and logged per interval
+ * while the test runs and for the whole test at the end. Outcomes are HTTP status codes,
+ * the simple name of the exception for requests without a response, or DROPPED for
+ * requests that were never sent because too many were outstanding.
+ */
+public class LatencyReport {
+    private static final Logger LOG = LoggerFactory.getLogger(LatencyReport.class);
+
+    public static final String DROPPED = "DROPPED";
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<String, LongAdder>> outcomes = new EnumMap<>(Operation.class);
+
+    public LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            totals.put(operation, new Histogram(3));
+            outcomes.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    public void record(Operation operation, long latencyNanos, String outcome) {
+        recorders.get(operation).recordValue(latencyNanos);
+        outcomes.get(operation).computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    public void dropped(Operation operation) {
+        outcomes.get(operation).computeIfAbsent(DROPPED, key -> new LongAdder()).increment();
+    }
+
+    public void logInterval(Duration elapsed, Duration interval) {
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            totals.get(operation).add(histogram);
+
+            if (histogram.getTotalCount() > 0) {
+                LOG.info("{} {}: {} req/s, p50 = {} ms, p99 = {} ms, max = {} ms",
+                        elapsed.getSeconds() + "s", operation, perSecond(histogram.getTotalCount(), interval),
+                        millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                        millis(histogram.getMaxValue()));
+            }
+        }
+    }
+
+    public void logSummary(Duration duration) {
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = totals.get(operation);
+            histogram.add(recorders.get(operation).getIntervalHistogram());
+
+            if (histogram.getTotalCount() == 0 && outcomes.get(operation).isEmpty()) {
+                continue;
+            }
+
+            Map<String, Long> counts = new TreeMap<>();
+            outcomes.get(operation).forEach((outcome, count) -> counts.put(outcome, count.sum()));
+
+            LOG.info("{}: {} requests, {} req/s, outcomes: {}", operation, histogram.getTotalCount(),
+                    perSecond(histogram.getTotalCount(), duration), counts);
+            LOG.info("{}: p50 = {} ms, p90 = {} ms, p99 = {} ms, p99.9 = {} ms, p99.99 = {} ms, max = {} ms", operation,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getValueAtPercentile(99.99)), millis(histogram.getMaxValue()));
+        }
+    }
+
+    /**
+     * The latencies of the whole test, complete once the summary is logged.
+     */
+    Histogram total(Operation operation) {
+        return totals.get(operation);
+    }
+
+    long outcomeCount(Operation operation, String outcome) {
+        LongAdder count = outcomes.get(operation).get(outcome);
+        return count == null ? 0 : count.sum();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    private static String perSecond(long count, Duration duration) {
+        return String.format("%.1f", count * 1_000_000_000.0 / duration.toNanos());
+    }
+}
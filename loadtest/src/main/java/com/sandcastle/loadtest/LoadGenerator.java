@@ -0,0 +1,241 @@
+package com.sandcastle.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sandcastle.api.composite.product.ProductAggregate;
+import com.sandcastle.api.composite.product.RecommendationSummary;
+import com.sandcastle.api.composite.product.ReviewSummary;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufMono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Drives the composite API with an open workload model.
+ *
+ * Requests are started at the configured arrival rate whether or not earlier requests have
+ * completed, like independent users do, so a slow composite builds up outstanding requests
+ * instead of slowing the load down. The latency of a request is measured from the time it
+ * was scheduled to start, which includes any delay of the generator itself and avoids
+ * coordinated omission.
+ *
+ * Arrivals are either poisson, i.e. exponentially distributed inter-arrival times, or
+ * constant. Each arrival is a GET, CREATE or DELETE of a random product id, picked by
+ * the weights in loadtest.mix.*. At most maxOutstanding requests are in flight, further
+ * arrivals are counted as DROPPED.
+ */
+@Component
+public class LoadGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private final ObjectMapper mapper;
+    private final ConnectionProvider connectionProvider;
+    private final HttpClient client;
+
+    private final double rate;
+    private final boolean poisson;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration reportInterval;
+    private final Duration timeout;
+    private final int maxOutstanding;
+    private final int productIds;
+    private final int recommendations;
+    private final int reviews;
+    private final int[] weights;
+
+    private final Random random = new Random();
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    public LoadGenerator(
+            ObjectMapper mapper,
+            @Value("${loadtest.baseUrl:http://localhost:7000}") String baseUrl,
+            @Value("${loadtest.rate:100}") double rate,
+            @Value("${loadtest.arrivals:poisson}") String arrivals,
+            @Value("${loadtest.warmup:10s}") Duration warmup,
+            @Value("${loadtest.duration:60s}") Duration duration,
+            @Value("${loadtest.reportInterval:10s}") Duration reportInterval,
+            @Value("${loadtest.timeout:10s}") Duration timeout,
+            @Value("${loadtest.maxOutstanding:10000}") int maxOutstanding,
+            @Value("${loadtest.productIds:1000}") int productIds,
+            @Value("${loadtest.recommendations:3}") int recommendations,
+            @Value("${loadtest.reviews:3}") int reviews,
+            @Value("${loadtest.mix.get:90}") int getWeight,
+            @Value("${loadtest.mix.create:5}") int createWeight,
+            @Value("${loadtest.mix.delete:5}") int deleteWeight) {
+
+        if (!"poisson".equals(arrivals) && !"constant".equals(arrivals)) {
+            throw new IllegalArgumentException("Invalid arrivals: " + arrivals + ", expected poisson or constant");
+        }
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Invalid rate: " + rate);
+        }
+        if (getWeight < 0 || createWeight < 0 || deleteWeight < 0 || getWeight + createWeight + deleteWeight == 0) {
+            throw new IllegalArgumentException("Invalid mix: " + getWeight + "/" + createWeight + "/" + deleteWeight);
+        }
+
+        this.mapper = mapper;
+        this.rate = rate;
+        this.poisson = "poisson".equals(arrivals);
+        this.warmup = warmup;
+        this.duration = duration;
+        this.reportInterval = reportInterval;
+        this.timeout = timeout;
+        this.maxOutstanding = maxOutstanding;
+        this.productIds = productIds;
+        this.recommendations = recommendations;
+        this.reviews = reviews;
+        this.weights = new int[] {getWeight, createWeight, deleteWeight};
+
+        // One connection per outstanding request, so the generator never queues requests itself
+        connectionProvider = ConnectionProvider.builder("loadtest")
+                .maxConnections(maxOutstanding)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        client = HttpClient.create(connectionProvider).baseUrl(baseUrl);
+
+        LOG.info("Sends {} req/s with {} arrivals to {}, mix GET/CREATE/DELETE = {}/{}/{}, warmup: {}, duration: {}",
+                rate, arrivals, baseUrl, getWeight, createWeight, deleteWeight, warmup, duration);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        connectionProvider.dispose();
+    }
+
+    public LatencyReport run() {
+        LatencyReport report = new LatencyReport();
+
+        double meanIntervalNanos = 1_000_000_000.0 / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long nextReport = measureFrom + reportInterval.toNanos();
+
+        // The intended start time of the next request, a double to not accumulate rounding errors
+        double next = start;
+        while (next < end) {
+            long intendedStart = (long) next;
+            sleepUntil(intendedStart);
+
+            send(nextOperation(), intendedStart, intendedStart >= measureFrom ? report : null);
+
+            if (System.nanoTime() >= nextReport) {
+                report.logInterval(Duration.ofNanos(nextReport - measureFrom), reportInterval);
+                nextReport += reportInterval.toNanos();
+            }
+
+            next += poisson ? -Math.log(1 - random.nextDouble()) * meanIntervalNanos : meanIntervalNanos;
+        }
+
+        awaitOutstanding();
+        report.logSummary(duration);
+        return report;
+    }
+
+    private void send(Operation operation, long intendedStart, LatencyReport report) {
+        if (outstanding.incrementAndGet() > maxOutstanding) {
+            outstanding.decrementAndGet();
+            if (report != null) {
+                report.dropped(operation);
+            }
+            return;
+        }
+
+        request(operation, 1 + random.nextInt(productIds))
+                .timeout(timeout)
+                .doFinally(signal -> outstanding.decrementAndGet())
+                .subscribe(
+                        status -> record(report, operation, intendedStart, String.valueOf(status)),
+                        ex -> record(report, operation, intendedStart, ex.getClass().getSimpleName()));
+    }
+
+    private Mono<Integer> request(Operation operation, int productId) {
+        switch (operation) {
+            case GET:
+                return client.get()
+                        .uri("/product-composite/" + productId)
+                        .responseSingle(this::status);
+
+            case CREATE:
+                return client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON))
+                        .post()
+                        .uri("/product-composite")
+                        .send(ByteBufMono.fromString(Mono.just(createBody(productId))))
+                        .responseSingle(this::status);
+
+            case DELETE:
+                return client.delete()
+                        .uri("/product-composite/" + productId)
+                        .responseSingle(this::status);
+
+            default:
+                throw new IllegalStateException("Unexpected operation: " + operation);
+        }
+    }
+
+    // Reads the body to release its buffers, only the status is kept
+    private Mono<Integer> status(HttpClientResponse response, ByteBufMono body) {
+        return body.asByteArray().then(Mono.fromSupplier(() -> response.status().code()));
+    }
+
+    private String createBody(int productId) {
+        List<RecommendationSummary> recommendationList = IntStream.rangeClosed(1, recommendations)
+                .mapToObj(id -> new RecommendationSummary(id, "author " + id, id % 5 + 1, "content " + id))
+                .collect(Collectors.toList());
+        List<ReviewSummary> reviewList = IntStream.rangeClosed(1, reviews)
+                .mapToObj(id -> new ReviewSummary(id, "author " + id, "subject " + id, "content " + id))
+                .collect(Collectors.toList());
+
+        try {
+            return mapper.writeValueAsString(new ProductAggregate(productId, "name " + productId, productId, recommendationList, reviewList, null));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private Operation nextOperation() {
+        int total = weights[0] + weights[1] + weights[2];
+        int pick = random.nextInt(total);
+        if (pick < weights[0]) {
+            return Operation.GET;
+        }
+        return pick < weights[0] + weights[1] ? Operation.CREATE : Operation.DELETE;
+    }
+
+    private void record(LatencyReport report, Operation operation, long intendedStart, String outcome) {
+        if (report != null) {
+            report.record(operation, System.nanoTime() - intendedStart, outcome);
+        }
+    }
+
+    private void awaitOutstanding() {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.sandcastle.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Runs the load test, or with loadtest.stubsOnly only serves the stubs for stubsOnlyDuration,
+ * e.g. while the composite is driven by another tool.
+ */
+@Component
+public class LoadTestRunner implements CommandLineRunner {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private final LoadGenerator generator;
+    private final boolean stubsOnly;
+    private final Duration stubsOnlyDuration;
+
+    public LoadTestRunner(
+            LoadGenerator generator,
+            @Value("${loadtest.stubsOnly:false}") boolean stubsOnly,
+            @Value("${loadtest.stubsOnlyDuration:1h}") Duration stubsOnlyDuration) {
+
+        this.generator = generator;
+        this.stubsOnly = stubsOnly;
+        this.stubsOnlyDuration = stubsOnlyDuration;
+    }
+
+    @Override
+    public void run(String... args) throws InterruptedException {
+        if (stubsOnly) {
+            LOG.info("Serves the stubs for {}", stubsOnlyDuration);
+            Thread.sleep(stubsOnlyDuration.toMillis());
+            return;
+        }
+        generator.run();
+    }
+}
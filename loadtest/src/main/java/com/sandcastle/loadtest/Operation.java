@@ -0,0 +1,7 @@
+package com.sandcastle.loadtest;
+
+public enum Operation {
+    GET,
+    CREATE,
+    DELETE
+}
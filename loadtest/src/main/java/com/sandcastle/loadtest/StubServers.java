@@ -0,0 +1,169 @@
+package com.sandcastle.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sandcastle.api.core.product.Product;
+import com.sandcastle.api.core.recommendation.Recommendation;
+import com.sandcastle.api.core.review.Review;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Stub servers for the core services, started with loadtest.stubs.enabled.
+ *
+ * They answer the GET requests of the composite with generated products, recommendations and
+ * reviews, and the health checks. Each stub delays its responses by a latency drawn from a
+ * log-normal distribution, given by loadtest.stubs.&lt;service&gt;.latency.median and .p99, and
+ * fails a share of them, loadtest.stubs.&lt;service&gt;.errorRate, with errorStatus. Creates and
+ * deletes go to the core services as events, so they need a broker but no stub.
+ *
+ * Point the composite at the stubs with app.&lt;service&gt;.host and .port.
+ */
+@Component
+public class StubServers {
+    private static final Logger LOG = LoggerFactory.getLogger(StubServers.class);
+
+    private static final String SERVICE_ADDRESS = "stub";
+
+    private final Environment env;
+    private final ObjectMapper mapper;
+
+    private final List<DisposableServer> servers = new ArrayList<>();
+
+    public StubServers(Environment env, ObjectMapper mapper) {
+        this.env = env;
+        this.mapper = mapper;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!env.getProperty("loadtest.stubs.enabled", Boolean.class, false)) {
+            return;
+        }
+
+        int items = env.getProperty("loadtest.stubs.items", Integer.class, 3);
+
+        servers.add(startStub("product", 7001, "/product", "/product/{productId}",
+                id -> new Product(id, "name " + id, id, SERVICE_ADDRESS)));
+        servers.add(startStub("recommendation", 7002, "/recommendation", null,
+                id -> IntStream.rangeClosed(1, items)
+                        .mapToObj(n -> new Recommendation(id, n, "author " + n, n % 5 + 1, "content " + n, SERVICE_ADDRESS))
+                        .collect(Collectors.toList())));
+        servers.add(startStub("review", 7003, "/review", null,
+                id -> IntStream.rangeClosed(1, items)
+                        .mapToObj(n -> new Review(id, n, "author " + n, "subject " + n, "content " + n, SERVICE_ADDRESS))
+                        .collect(Collectors.toList())));
+    }
+
+    @PreDestroy
+    void stop() {
+        servers.forEach(DisposableServer::disposeNow);
+    }
+
+    /**
+     * @param queryPath answers ?productId=, ?productId=&amp;cursor=&amp;limit= and ?productIds= or ?ids= with the
+     *                  items of one product, a page of them, or the items of all the products
+     * @param itemPath  if not null, answers /{productId} with the item of one product
+     */
+    private DisposableServer startStub(String service, int defaultPort, String queryPath, String itemPath, IntFunction<Object> items) {
+
+        String prefix = "loadtest.stubs." + service + ".";
+        int port = env.getProperty(prefix + "port", Integer.class, defaultPort);
+        Duration median = env.getProperty(prefix + "latency.median", Duration.class, Duration.ofMillis(5));
+        Duration p99 = env.getProperty(prefix + "latency.p99", Duration.class, Duration.ofMillis(50));
+        double errorRate = env.getProperty(prefix + "errorRate", Double.class, 0.0);
+        int errorStatus = env.getProperty(prefix + "errorStatus", Integer.class, 500);
+
+        Stub stub = new Stub(new LatencyDistribution(median, p99), errorRate, errorStatus);
+
+        DisposableServer server = HttpServer.create()
+                .port(port)
+                .route(routes -> {
+                    routes.get("/actuator/health", (request, response) ->
+                            stub.respond(response, () -> Map.of("status", "UP")));
+                    if (itemPath != null) {
+                        routes.get(itemPath, (request, response) ->
+                                stub.respond(response, () -> items.apply(Integer.parseInt(request.param("productId")))));
+                    }
+                    routes.get(queryPath, (request, response) ->
+                            stub.respond(response, () -> query(request, items)));
+                })
+                .bindNow();
+
+        LOG.info("Started a {} stub on port {}, latency median = {}, p99 = {}, error rate = {} with status {}",
+                service, port, median, p99, errorRate, errorStatus);
+        return server;
+    }
+
+    private Object query(HttpServerRequest request, IntFunction<Object> items) {
+        Map<String, List<String>> params = new QueryStringDecoder(request.uri()).parameters();
+
+        List<String> productIds = params.containsKey("productIds") ? params.get("productIds") : params.get("ids");
+        if (productIds != null) {
+            return Arrays.stream(productIds.get(0).split(","))
+                    .map(id -> items.apply(Integer.parseInt(id)))
+                    .flatMap(item -> item instanceof List ? ((List<?>) item).stream() : Stream.of(item))
+                    .collect(Collectors.toList());
+        }
+
+        Object result = items.apply(Integer.parseInt(params.get("productId").get(0)));
+        if (params.containsKey("limit") && result instanceof List) {
+            int cursor = Integer.parseInt(params.get("cursor").get(0));
+            int limit = Integer.parseInt(params.get("limit").get(0));
+            List<?> list = (List<?>) result;
+            return list.subList(Math.min(cursor, list.size()), Math.min(cursor + limit, list.size()));
+        }
+        return result;
+    }
+
+    private class Stub {
+        private final LatencyDistribution latency;
+        private final double errorRate;
+        private final int errorStatus;
+
+        Stub(LatencyDistribution latency, double errorRate, int errorStatus) {
+            this.latency = latency;
+            this.errorRate = errorRate;
+            this.errorStatus = errorStatus;
+        }
+
+        Mono<Void> respond(HttpServerResponse response, Supplier<Object> body) {
+            boolean fail = ThreadLocalRandom.current().nextDouble() < errorRate;
+
+            return Mono.delay(latency.next())
+                    .then(Mono.defer(() -> fail
+                            ? response.status(errorStatus).send().then()
+                            : response.header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                                    .sendString(Mono.fromCallable(() -> json(body.get())))
+                                    .then()));
+        }
+
+        private String json(Object body) throws JsonProcessingException {
+            return mapper.writeValueAsString(body);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.sandcastle.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadGeneratorTests {
+
+  private static final long MILLIS = 1_000_000;
+
+  private final AtomicInteger received = new AtomicInteger();
+
+  // A composite that answers every request after the given delay
+  private DisposableServer server;
+
+  @AfterEach
+  void disposeServer() {
+    server.disposeNow();
+  }
+
+  @Test
+  void latencyIsMeasuredFromTheIntendedStartTime() {
+
+    startServer(Duration.ZERO);
+
+    // Creating the first body stalls the generator for 200 ms, the requests scheduled meanwhile are sent late
+    AtomicBoolean stalled = new AtomicBoolean();
+    ObjectMapper stallingMapper = new ObjectMapper() {
+      @Override
+      public String writeValueAsString(Object value) throws JsonProcessingException {
+        if (stalled.compareAndSet(false, true)) {
+          sleep(Duration.ofMillis(200));
+        }
+        return super.writeValueAsString(value);
+      }
+    };
+
+    // 100 req/s for 500 ms, only creates
+    LoadGenerator generator = createGenerator(stallingMapper, 100, Duration.ofMillis(500), 100, 0, 100);
+    LatencyReport report = run(generator);
+
+    // All 50 requests are sent, the late ones are not skipped
+    Histogram latencies = report.total(Operation.CREATE);
+    assertEquals(50, latencies.getTotalCount());
+    assertEquals(50, report.outcomeCount(Operation.CREATE, "200"));
+
+    // The requests scheduled in the first 100 ms waited at least 100 ms for the generator, although the
+    // composite answered at once
+    assertTrue(latencies.getMaxValue() >= 200 * MILLIS, "max = " + latencies.getMaxValue());
+    assertTrue(latencies.getCountBetweenValues(100 * MILLIS, latencies.getMaxValue()) >= 10,
+      "count >= 100 ms = " + latencies.getCountBetweenValues(100 * MILLIS, latencies.getMaxValue()));
+  }
+
+  @Test
+  void arrivalsOverMaxOutstandingAreDropped() {
+
+    startServer(Duration.ofMillis(500));
+
+    // 100 req/s for 100 ms, only gets, at most 2 in flight
+    LoadGenerator generator = createGenerator(new ObjectMapper(), 100, Duration.ofMillis(100), 2, 100, 0);
+    LatencyReport report = run(generator);
+
+    assertEquals(2, received.get());
+    assertEquals(2, report.outcomeCount(Operation.GET, "200"));
+    assertEquals(8, report.outcomeCount(Operation.GET, LatencyReport.DROPPED));
+    assertEquals(2, report.total(Operation.GET).getTotalCount());
+  }
+
+  private void startServer(Duration delay) {
+    server = HttpServer.create()
+      .port(0)
+      .handle((request, response) -> {
+        received.incrementAndGet();
+        return request.receive().then(Mono.delay(delay)).then(response.sendString(Mono.just("{}")).then());
+      })
+      .bindNow();
+  }
+
+  private LoadGenerator createGenerator(ObjectMapper mapper, double rate, Duration duration, int maxOutstanding,
+                                        int getWeight, int createWeight) {
+    return new LoadGenerator(mapper, "http://localhost:" + server.port(), rate, "constant",
+      Duration.ZERO, duration, Duration.ofSeconds(10), Duration.ofSeconds(5), maxOutstanding,
+      10, 1, 1, getWeight, createWeight, 0);
+  }
+
+  private static LatencyReport run(LoadGenerator generator) {
+    try {
+      return generator.run();
+    } finally {
+      generator.shutdown();
+    }
+  }
+
+  private static void sleep(Duration duration) {
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
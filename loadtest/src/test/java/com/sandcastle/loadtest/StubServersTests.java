@@ -0,0 +1,94 @@
+package com.sandcastle.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StubServersTests {
+
+  private static final long MILLIS = 1_000_000;
+
+  private StubServers stubs;
+
+  @AfterEach
+  void stopStubs() {
+    if (stubs != null) {
+      stubs.stop();
+    }
+  }
+
+  @Test
+  void latencyDistributionHasTheConfiguredMedianAndP99() {
+
+    LatencyDistribution distribution = new LatencyDistribution(Duration.ofMillis(5), Duration.ofMillis(50));
+
+    long[] samples = new long[100_000];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = distribution.next().toNanos();
+    }
+    Arrays.sort(samples);
+
+    assertEquals(5 * MILLIS, samples[samples.length / 2], 0.05 * 5 * MILLIS);
+    assertEquals(50 * MILLIS, samples[samples.length * 99 / 100], 0.1 * 50 * MILLIS);
+  }
+
+  @Test
+  void stubsDelayAndFailResponsesAsConfigured() {
+
+    int port = freePort();
+    MockEnvironment env = new MockEnvironment()
+      .withProperty("loadtest.stubs.enabled", "true")
+      .withProperty("loadtest.stubs.product.port", String.valueOf(port))
+      .withProperty("loadtest.stubs.product.latency.median", "20ms")
+      .withProperty("loadtest.stubs.product.latency.p99", "20ms")
+      .withProperty("loadtest.stubs.product.errorRate", "0.25")
+      .withProperty("loadtest.stubs.product.errorStatus", "503")
+      .withProperty("loadtest.stubs.recommendation.port", String.valueOf(freePort()))
+      .withProperty("loadtest.stubs.review.port", String.valueOf(freePort()));
+    env.setConversionService(new ApplicationConversionService());
+
+    stubs = new StubServers(env, new ObjectMapper());
+    stubs.start();
+
+    // Status and latency of each request
+    HttpClient client = HttpClient.create().baseUrl("http://localhost:" + port);
+    List<long[]> responses = Flux.range(1, 400)
+      .flatMap(i -> {
+        long start = System.nanoTime();
+        return client.get().uri("/product/1")
+          .responseSingle((response, body) -> body.asString().defaultIfEmpty("")
+            .map(content -> new long[] {response.status().code(), System.nanoTime() - start}));
+      }, 50)
+      .collectList()
+      .block(Duration.ofSeconds(30));
+
+    long errors = responses.stream().filter(response -> response[0] == 503).count();
+    long successes = responses.stream().filter(response -> response[0] == 200).count();
+    assertEquals(400, errors + successes);
+    assertEquals(0.25, errors / 400.0, 0.075);
+
+    assertTrue(responses.stream().allMatch(response -> response[1] >= 20 * MILLIS));
+  }
+
+  private static int freePort() {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
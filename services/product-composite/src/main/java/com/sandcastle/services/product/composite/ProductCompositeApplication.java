@@ -1,6 +1,8 @@
 package com.sandcastle.services.product.composite;
 
-import com.sandcastle.services.product.composite.services.ProductCompositeIntegration;
+import com.sandcastle.common.scheduling.BlockingSchedulers;
+import com.sandcastle.services.product.composite.services.EventPublisher;
+import com.sandcastle.services.product.composite.services.CoreServicesHealthCache;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
@@ -16,9 +18,11 @@ import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.messaging.SubscribableChannel;
 import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -49,40 +53,47 @@ public class ProductCompositeApplication {
 
 	private final Integer threadPoolSize;
 	private final Integer taskQueueSize;
+	private final String schedulerMode;
+	private final Integer maxConcurrency;
 
 	@Autowired
 	public ProductCompositeApplication(
 			@Value("${app.threadPoolSize:10}") Integer threadPoolSize,
-			@Value("${app.taskQueueSize:100}") Integer taskQueueSize
+			@Value("${app.taskQueueSize:100}") Integer taskQueueSize,
+			@Value("${app.scheduler.mode:boundedElastic}") String schedulerMode,
+			@Value("${app.scheduler.maxConcurrency:1}") Integer maxConcurrency
 	) {
 		this.threadPoolSize = threadPoolSize;
 		this.taskQueueSize = taskQueueSize;
+		this.schedulerMode = schedulerMode;
+		this.maxConcurrency = maxConcurrency;
 	}
 
+	// Only the EventPublisher worker runs on it, one task at a time, and there is no connection pool to protect
 	@Bean
 	public Scheduler publishEventScheduler() {
-		LOG.info("Creates a messagingScheduler with connectionPoolSize = {}", threadPoolSize);
-		return Schedulers.newBoundedElastic(threadPoolSize, taskQueueSize, "publish-pool");
+		return BlockingSchedulers.create(schedulerMode, "publish-pool", threadPoolSize, taskQueueSize, maxConcurrency);
 	}
 
+	// The Kafka binder sends the record metadata of successfully published events here, see EventPublisher
+	@Bean(EventPublisher.KAFKA_SEND_RESULTS)
+	public SubscribableChannel kafkaSendResults() {
+		return new DirectChannel();
+	}
 
 
-	/*
-	@Autowired
-	ProductCompositeIntegration integration;
 
+	// Served from the cache, a health probe never calls the core services
 	@Bean
-	ReactiveHealthContributor coreServices() {
+	ReactiveHealthContributor coreServices(CoreServicesHealthCache healthCache) {
 
 		final Map<String, ReactiveHealthIndicator> registry = new LinkedHashMap<>();
 
-		registry.put("product", () -> integration.getProductHealth());
-		registry.put("recommendation", () -> integration.getRecommendationHealth());
-		registry.put("review", () -> integration.getReviewHealth());
+		healthCache.getServices().forEach(service ->
+				registry.put(service, () -> Mono.just(healthCache.getHealth(service))));
 
 		return CompositeReactiveHealthContributor.fromMap(registry);
 	}
-	*/
 
 	public static void main(String[] args) {
 		SpringApplication.run(ProductCompositeApplication.class, args);
@@ -0,0 +1,182 @@
+package com.sandcastle.services.product.composite.readmodel;
+
+import com.sandcastle.api.composite.product.ProductAggregate;
+import com.sandcastle.api.composite.product.RecommendationSummary;
+import com.sandcastle.api.composite.product.ReviewSummary;
+import com.sandcastle.api.composite.product.ServiceAddresses;
+import com.sandcastle.api.core.recommendation.Recommendation;
+import com.sandcastle.api.core.review.Review;
+import com.sandcastle.services.product.composite.services.ProductAggregates;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The denormalized read model of one product aggregate, kept up to date by the
+ * {@link ReadModelProjector}. Recommendations and reviews are keyed by their ids,
+ * so a redelivered event overwrites the same entry instead of adding a duplicate.
+ *
+ * The document is only complete once the product itself has been projected, until
+ * then name is null.
+ *
+ * The versions of the parts are stored as well, so an aggregate read from the read model
+ * has the same ETag as one assembled from the core services.
+ */
+@Document(collection = "productAggregates")
+public class ProductAggregateDocument {
+
+    public static final String NAME = "name";
+    public static final String WEIGHT = "weight";
+    public static final String RECOMMENDATIONS = "recommendations";
+    public static final String REVIEWS = "reviews";
+    public static final String PRODUCT_VERSION = "productVersion";
+    public static final String UPDATED_AT = "updatedAt";
+
+    // The core services only create and delete the parts, so a stored part has the version of a new entity.
+    // The events and the aggregate summaries carry no version
+    static final int INITIAL_VERSION = 0;
+
+    @Id
+    private int productId;
+
+    private String name;
+    private int weight;
+    private Integer productVersion;
+
+    private Map<String, Recommendation> recommendations = new LinkedHashMap<>();
+    private Map<String, Review> reviews = new LinkedHashMap<>();
+
+    private Instant updatedAt;
+
+    public ProductAggregateDocument() {}
+
+    public ProductAggregateDocument(int productId, String name, int weight) {
+        this.productId = productId;
+        this.name = name;
+        this.weight = weight;
+        this.updatedAt = Instant.now();
+    }
+
+    public static ProductAggregateDocument fromAggregate(ProductAggregate aggregate) {
+
+        int productId = aggregate.getProductId();
+        ProductAggregateDocument document = new ProductAggregateDocument(productId, aggregate.getName(), aggregate.getWeight());
+        document.productVersion = INITIAL_VERSION;
+
+        if (aggregate.getRecommendations() != null) {
+            aggregate.getRecommendations().forEach(r -> document.recommendations.put(String.valueOf(r.getRecommendationId()),
+                    withInitialVersion(new Recommendation(productId, r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent(), null))));
+        }
+
+        if (aggregate.getReviews() != null) {
+            aggregate.getReviews().forEach(r -> document.reviews.put(String.valueOf(r.getReviewId()),
+                    withInitialVersion(new Review(productId, r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent(), null))));
+        }
+
+        return document;
+    }
+
+    static Recommendation withInitialVersion(Recommendation recommendation) {
+        if (recommendation.getVersion() == null) {
+            recommendation.setVersion(INITIAL_VERSION);
+        }
+        return recommendation;
+    }
+
+    static Review withInitialVersion(Review review) {
+        if (review.getVersion() == null) {
+            review.setVersion(INITIAL_VERSION);
+        }
+        return review;
+    }
+
+    public boolean isComplete() {
+        return name != null;
+    }
+
+    public ProductAggregate toAggregate(String serviceAddress) {
+
+        List<RecommendationSummary> recommendationSummaries = (recommendations == null) ? List.of() :
+                recommendations.values().stream()
+                        .sorted(Comparator.comparingInt(Recommendation::getRecommendationId))
+                        .map(r -> new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent()))
+                        .collect(Collectors.toList());
+
+        List<ReviewSummary> reviewSummaries = (reviews == null) ? List.of() :
+                reviews.values().stream()
+                        .sorted(Comparator.comparingInt(Review::getReviewId))
+                        .map(r -> new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent()))
+                        .collect(Collectors.toList());
+
+        // The parts were not read from the core services but from the read model of this composite instance
+        ServiceAddresses serviceAddresses = new ServiceAddresses(serviceAddress, serviceAddress, serviceAddress, serviceAddress);
+
+        ProductAggregate aggregate = new ProductAggregate(productId, name, weight, recommendationSummaries, reviewSummaries, serviceAddresses);
+        aggregate.setEtag(ProductAggregates.etag(productId, productVersion,
+                recommendations == null ? List.of() : recommendations.values(),
+                reviews == null ? List.of() : reviews.values()));
+        return aggregate;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    public Integer getProductVersion() {
+        return productVersion;
+    }
+
+    public void setProductVersion(Integer productVersion) {
+        this.productVersion = productVersion;
+    }
+
+    public Map<String, Recommendation> getRecommendations() {
+        return recommendations;
+    }
+
+    public void setRecommendations(Map<String, Recommendation> recommendations) {
+        this.recommendations = recommendations;
+    }
+
+    public Map<String, Review> getReviews() {
+        return reviews;
+    }
+
+    public void setReviews(Map<String, Review> reviews) {
+        this.reviews = reviews;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
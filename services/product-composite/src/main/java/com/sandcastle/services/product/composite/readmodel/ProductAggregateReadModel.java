@@ -0,0 +1,46 @@
+package com.sandcastle.services.product.composite.readmodel;
+
+import com.sandcastle.api.composite.product.ProductAggregate;
+import com.sandcastle.common.http.ServiceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import static java.util.logging.Level.FINE;
+
+/**
+ * Looks up product aggregates in the read model maintained by the {@link ReadModelProjector}.
+ */
+@Component
+@Profile("read_model")
+public class ProductAggregateReadModel {
+    private static final Logger LOG = LoggerFactory.getLogger(ProductAggregateReadModel.class);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ServiceUtil serviceUtil;
+
+    @Autowired
+    public ProductAggregateReadModel(ReactiveMongoTemplate mongoTemplate, ServiceUtil serviceUtil) {
+        this.mongoTemplate = mongoTemplate;
+        this.serviceUtil = serviceUtil;
+    }
+
+    /**
+     * Returns empty if the product is not, or not yet completely, in the read model,
+     * or if the read model can't be reached. The caller then falls back to the core services.
+     */
+    public Mono<ProductAggregate> findProduct(int productId) {
+        return mongoTemplate.findById(productId, ProductAggregateDocument.class)
+                .filter(ProductAggregateDocument::isComplete)
+                .map(document -> document.toAggregate(serviceUtil.getServiceAddress()))
+                .log(LOG.getName(), FINE)
+                .onErrorResume(ex -> {
+                    LOG.warn("Read model lookup failed for productId: {}, error: {}", productId, ex.toString());
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,62 @@
+package com.sandcastle.services.product.composite.readmodel;
+
+import com.sandcastle.api.core.product.Product;
+import com.sandcastle.api.core.recommendation.Recommendation;
+import com.sandcastle.api.core.review.Review;
+import com.sandcastle.api.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The read model projectors, one consumer per topic. They use a durable consumer group,
+ * so the composite instances share the work and no events are lost during a restart.
+ */
+@Configuration
+@Profile("read_model")
+public class ReadModelConfig {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReadModelConfig.class);
+
+  private final ReadModelProjector projector;
+  private final ReadModelLagTracker lagTracker;
+
+  @Autowired
+  public ReadModelConfig(ReadModelProjector projector, ReadModelLagTracker lagTracker) {
+    this.projector = projector;
+    this.lagTracker = lagTracker;
+  }
+
+  @Bean
+  public Consumer<Message<Event<Integer, Product>>> productProjector() {
+    return message -> project("products", message, projector::projectProductEvent);
+  }
+
+  @Bean
+  public Consumer<Message<Event<Integer, Recommendation>>> recommendationProjector() {
+    return message -> project("recommendations", message, projector::projectRecommendationEvent);
+  }
+
+  @Bean
+  public Consumer<Message<Event<Integer, Review>>> reviewProjector() {
+    return message -> project("reviews", message, projector::projectReviewEvent);
+  }
+
+  private <T> void project(String destination, Message<Event<Integer, T>> message, Function<Event<Integer, T>, Mono<Void>> projection) {
+    Event<Integer, T> event = message.getPayload();
+    LOG.debug("Project {} event for ProductID: {} from {}", event.getEventType(), event.getKey(), destination);
+
+    // Block, so a failed projection is retried and finally dead-lettered by the binder
+    projection.apply(event).block();
+
+    lagTracker.record(destination, message.getHeaders(), event.getEventCreatedAt());
+  }
+}
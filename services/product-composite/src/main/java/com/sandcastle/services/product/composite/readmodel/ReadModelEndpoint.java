@@ -0,0 +1,51 @@
+package com.sandcastle.services.product.composite.readmodel;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sample usage:
+ *
+ * curl $HOST:$PORT/actuator/readmodel
+ * curl -X POST $HOST:$PORT/actuator/readmodel
+ *
+ * GET reports the projection lag per topic and partition and the rebuild status,
+ * POST starts a rebuild of the read model from scratch.
+ */
+@Component
+@Profile("read_model")
+@Endpoint(id = "readmodel")
+public class ReadModelEndpoint {
+
+    private final ReadModelLagTracker lagTracker;
+    private final ReadModelRebuilder rebuilder;
+
+    @Autowired
+    public ReadModelEndpoint(ReadModelLagTracker lagTracker, ReadModelRebuilder rebuilder) {
+        this.lagTracker = lagTracker;
+        this.rebuilder = rebuilder;
+    }
+
+    @ReadOperation
+    public Map<String, Object> readModel() {
+        Map<String, Object> readModel = new LinkedHashMap<>();
+        readModel.put("lag", lagTracker.getLag());
+        readModel.put("rebuild", rebuilder.getStatus());
+        return readModel;
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        boolean started = rebuilder.rebuild();
+        Map<String, Object> result = new LinkedHashMap<>(rebuilder.getStatus());
+        result.put("started", started);
+        return result;
+    }
+}
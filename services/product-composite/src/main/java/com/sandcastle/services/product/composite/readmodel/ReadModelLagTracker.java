@@ -0,0 +1,94 @@
+package com.sandcastle.services.product.composite.readmodel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of how far behind the projection is, per topic and partition.
+ *
+ * The lag is the time from when an event was created until it was projected. It is
+ * published as the readmodel.projection.lag timer and reported by the readmodel
+ * actuator endpoint.
+ */
+@Component
+@Profile("read_model")
+public class ReadModelLagTracker {
+
+    // Kafka tells the partition, a partitioned Rabbit consumer has one queue per partition
+    private static final String KAFKA_PARTITION = "kafka_receivedPartitionId";
+    private static final String RABBIT_QUEUE = "amqp_consumerQueue";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, PartitionLag> partitions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReadModelLagTracker(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String destination, MessageHeaders headers, ZonedDateTime eventCreatedAt) {
+
+        if (eventCreatedAt == null) {
+            return;
+        }
+
+        String partition = getPartition(headers);
+        Duration lag = Duration.between(eventCreatedAt, ZonedDateTime.now());
+
+        partitions.computeIfAbsent(destination + "/" + partition, key -> new PartitionLag(
+                        Timer.builder("readmodel.projection.lag")
+                                .description("Time from event creation until it is projected into the read model")
+                                .tag("destination", destination)
+                                .tag("partition", partition)
+                                .register(meterRegistry)))
+                .record(lag, eventCreatedAt);
+    }
+
+    public Map<String, Map<String, Object>> getLag() {
+        Map<String, Map<String, Object>> lag = new TreeMap<>();
+        partitions.forEach((key, partitionLag) -> lag.put(key, partitionLag.toMap()));
+        return lag;
+    }
+
+    private String getPartition(MessageHeaders headers) {
+        Object partition = headers.get(KAFKA_PARTITION);
+        if (partition == null) {
+            partition = headers.get(RABBIT_QUEUE);
+        }
+        return partition == null ? "none" : partition.toString();
+    }
+
+    private static class PartitionLag {
+        private final Timer timer;
+        private final AtomicLong lastLagMillis = new AtomicLong();
+        private volatile ZonedDateTime lastEventCreatedAt;
+
+        PartitionLag(Timer timer) {
+            this.timer = timer;
+        }
+
+        void record(Duration lag, ZonedDateTime eventCreatedAt) {
+            timer.record(lag);
+            lastLagMillis.set(lag.toMillis());
+            lastEventCreatedAt = eventCreatedAt;
+        }
+
+        Map<String, Object> toMap() {
+            return Map.of(
+                    "lastLagMillis", lastLagMillis.get(),
+                    "lastEventCreatedAt", String.valueOf(lastEventCreatedAt),
+                    "eventCount", timer.count());
+        }
+    }
+}
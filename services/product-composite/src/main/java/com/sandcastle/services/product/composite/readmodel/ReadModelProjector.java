@@ -0,0 +1,150 @@
+package com.sandcastle.services.product.composite.readmodel;
+
+import com.sandcastle.api.core.product.Product;
+import com.sandcastle.api.core.recommendation.Recommendation;
+import com.sandcastle.api.core.review.Review;
+import com.sandcastle.api.event.Event;
+import com.sandcastle.api.exceptions.EventProcessingException;
+import com.sandcastle.services.product.composite.services.ProductAggregateCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+import static com.sandcastle.services.product.composite.readmodel.ProductAggregateDocument.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Applies product, recommendation and review events to the read model.
+ *
+ * Every event is applied as one atomic update of the aggregate document, upserting it
+ * if needed. The events of the three topics are not ordered relative to each other, so
+ * a recommendation or review may arrive before its product; the document then stays
+ * incomplete until the product event is projected.
+ *
+ * A deleted product leaves an empty, incomplete document behind, so that a running
+ * {@link ReadModelRebuilder} can tell that the document is newer than its snapshot.
+ *
+ * The cached aggregate of the product is evicted once the update is written. The
+ * aggregateCacheInvalidator evicts it when the event arrives, and a request in between
+ * may cache the aggregate it read from the document before the update.
+ */
+@Component
+@Profile("read_model")
+public class ReadModelProjector {
+    private static final Logger LOG = LoggerFactory.getLogger(ReadModelProjector.class);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ProductAggregateCache aggregateCache;
+
+    @Autowired
+    public ReadModelProjector(ReactiveMongoTemplate mongoTemplate, ProductAggregateCache aggregateCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.aggregateCache = aggregateCache;
+    }
+
+    public Mono<Void> projectProductEvent(Event<Integer, Product> event) {
+        switch (event.getEventType()) {
+
+            case CREATE:
+                Product product = event.getData();
+                LOG.debug("Project product with ID: {}", product.getProductId());
+                return upsert(product.getProductId(), new Update()
+                        .set(NAME, product.getName())
+                        .set(WEIGHT, product.getWeight())
+                        .set(PRODUCT_VERSION, product.getVersion() == null ? INITIAL_VERSION : product.getVersion()));
+
+            case DELETE:
+                LOG.debug("Remove aggregate with ProductID: {}", event.getKey());
+                return upsert(event.getKey(), new Update()
+                        .unset(NAME)
+                        .unset(WEIGHT)
+                        .unset(PRODUCT_VERSION)
+                        .unset(RECOMMENDATIONS)
+                        .unset(REVIEWS));
+
+            default:
+                throw incorrectEventType(event);
+        }
+    }
+
+    public Mono<Void> projectRecommendationEvent(Event<Integer, Recommendation> event) {
+        switch (event.getEventType()) {
+
+            case CREATE:
+                Recommendation recommendation = event.getData();
+                LOG.debug("Project recommendation {}/{}", recommendation.getProductId(), recommendation.getRecommendationId());
+                return upsert(recommendation.getProductId(), new Update()
+                        .set(RECOMMENDATIONS + "." + recommendation.getRecommendationId(), withInitialVersion(recommendation)));
+
+            case CREATE_BATCH:
+                LOG.debug("Project {} recommendations with ProductID: {}", event.getBatch().size(), event.getKey());
+                Update recommendations = new Update();
+                event.getBatch().forEach(r -> recommendations.set(RECOMMENDATIONS + "." + r.getRecommendationId(), withInitialVersion(r)));
+                return upsert(event.getKey(), recommendations);
+
+            case DELETE:
+                LOG.debug("Remove recommendations with ProductID: {}", event.getKey());
+                return update(event.getKey(), new Update().unset(RECOMMENDATIONS));
+
+            default:
+                throw incorrectEventType(event);
+        }
+    }
+
+    public Mono<Void> projectReviewEvent(Event<Integer, Review> event) {
+        switch (event.getEventType()) {
+
+            case CREATE:
+                Review review = event.getData();
+                LOG.debug("Project review {}/{}", review.getProductId(), review.getReviewId());
+                return upsert(review.getProductId(), new Update()
+                        .set(REVIEWS + "." + review.getReviewId(), withInitialVersion(review)));
+
+            case CREATE_BATCH:
+                LOG.debug("Project {} reviews with ProductID: {}", event.getBatch().size(), event.getKey());
+                Update reviews = new Update();
+                event.getBatch().forEach(r -> reviews.set(REVIEWS + "." + r.getReviewId(), withInitialVersion(r)));
+                return upsert(event.getKey(), reviews);
+
+            case DELETE:
+                LOG.debug("Remove reviews with ProductID: {}", event.getKey());
+                return update(event.getKey(), new Update().unset(REVIEWS));
+
+            default:
+                throw incorrectEventType(event);
+        }
+    }
+
+    private Mono<Void> upsert(int productId, Update update) {
+        return mongoTemplate.upsert(byProductId(productId), update.set(UPDATED_AT, Instant.now()), ProductAggregateDocument.class)
+                .then(evict(productId));
+    }
+
+    // Deletes must not create a document for a product that is already gone
+    private Mono<Void> update(int productId, Update update) {
+        return mongoTemplate.updateFirst(byProductId(productId), update.set(UPDATED_AT, Instant.now()), ProductAggregateDocument.class)
+                .then(evict(productId));
+    }
+
+    private Mono<Void> evict(int productId) {
+        return Mono.fromRunnable(() -> aggregateCache.evict(productId));
+    }
+
+    private Query byProductId(int productId) {
+        return Query.query(where("_id").is(productId));
+    }
+
+    private EventProcessingException incorrectEventType(Event<?, ?> event) {
+        String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE, CREATE_BATCH or DELETE event";
+        LOG.warn(errorMessage);
+        return new EventProcessingException(errorMessage);
+    }
+}
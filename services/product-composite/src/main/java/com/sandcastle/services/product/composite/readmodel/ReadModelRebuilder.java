@@ -0,0 +1,135 @@
+package com.sandcastle.services.product.composite.readmodel;
+
+import com.sandcastle.api.composite.product.ProductCompositeService;
+import com.sandcastle.services.product.composite.services.ProductAggregateCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.sandcastle.services.product.composite.readmodel.ProductAggregateDocument.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Rebuilds the read model from scratch: reloads every product aggregate from the core
+ * services, using the streaming composite endpoint, and then removes the documents of
+ * the products that no longer exist.
+ *
+ * Events keep being projected during a rebuild, and the documents keep being served.
+ * A document that the projector has updated since the rebuild started may be newer than
+ * the reloaded aggregate, so it is left as it is. The others are replaced.
+ */
+@Component
+@Profile("read_model")
+public class ReadModelRebuilder {
+    private static final Logger LOG = LoggerFactory.getLogger(ReadModelRebuilder.class);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ProductCompositeService compositeService;
+    private final ProductAggregateCache aggregateCache;
+
+    private final boolean rebuildOnStartup;
+    private final int concurrency;
+
+    private final AtomicLong rebuiltCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private volatile Disposable rebuild;
+    private volatile String status = "idle";
+    private volatile Instant startedAt;
+
+    @Autowired
+    public ReadModelRebuilder(
+            ReactiveMongoTemplate mongoTemplate,
+            ProductCompositeService compositeService,
+            ProductAggregateCache aggregateCache,
+            @Value("${app.readModel.rebuildOnStartup:false}") boolean rebuildOnStartup,
+            @Value("${app.readModel.rebuildConcurrency:8}") int concurrency) {
+
+        this.mongoTemplate = mongoTemplate;
+        this.compositeService = compositeService;
+        this.aggregateCache = aggregateCache;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.concurrency = concurrency;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    public synchronized boolean rebuild() {
+
+        if (rebuild != null && !rebuild.isDisposed()) {
+            LOG.info("A read model rebuild is already running");
+            return false;
+        }
+
+        LOG.info("Rebuilds the read model from scratch");
+        rebuiltCount.set(0);
+        skippedCount.set(0);
+        Instant rebuildStart = Instant.now();
+        startedAt = rebuildStart;
+        status = "running";
+
+        rebuild = compositeService.streamProducts(1, Integer.MAX_VALUE)
+                .map(ProductAggregateDocument::fromAggregate)
+                .flatMap(document -> replaceIfNotUpdatedSince(document, rebuildStart), concurrency)
+                .doOnNext(replaced -> (replaced ? rebuiltCount : skippedCount).incrementAndGet())
+                .then(Mono.defer(() -> mongoTemplate.remove(Query.query(where(UPDATED_AT).lt(rebuildStart)), ProductAggregateDocument.class)))
+                .doOnNext(result -> {
+                    status = "done";
+                    LOG.info("Read model rebuilt with {} products, skipped {} products that were updated during the rebuild, removed {} products",
+                            rebuiltCount.get(), skippedCount.get(), result.getDeletedCount());
+                })
+                .subscribe(null, ex -> {
+                    status = "failed: " + ex;
+                    LOG.warn("Read model rebuild failed: {}", ex.toString());
+                });
+
+        return true;
+    }
+
+    // If the document was updated since the rebuild started the query doesn't match it, and the upsert fails
+    // to insert a second document with the same id
+    private Mono<Boolean> replaceIfNotUpdatedSince(ProductAggregateDocument document, Instant rebuildStart) {
+        Query notUpdatedSince = Query.query(where("_id").is(document.getProductId()).and(UPDATED_AT).lt(rebuildStart));
+        Update replacement = new Update()
+                .set(NAME, document.getName())
+                .set(WEIGHT, document.getWeight())
+                .set(PRODUCT_VERSION, document.getProductVersion())
+                .set(RECOMMENDATIONS, document.getRecommendations())
+                .set(REVIEWS, document.getReviews())
+                .set(UPDATED_AT, document.getUpdatedAt());
+
+        return mongoTemplate.upsert(notUpdatedSince, replacement, ProductAggregateDocument.class)
+                .doOnNext(result -> aggregateCache.evict(document.getProductId()))
+                .map(result -> true)
+                .onErrorResume(DuplicateKeyException.class, ex -> Mono.just(false));
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> rebuildStatus = new LinkedHashMap<>();
+        rebuildStatus.put("status", status);
+        rebuildStatus.put("startedAt", String.valueOf(startedAt));
+        rebuildStatus.put("productCount", rebuiltCount.get());
+        rebuildStatus.put("skippedCount", skippedCount.get());
+        return rebuildStatus;
+    }
+}
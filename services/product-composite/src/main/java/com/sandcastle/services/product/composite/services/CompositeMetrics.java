@@ -0,0 +1,183 @@
+package com.sandcastle.services.product.composite.services;
+
+import com.sandcastle.api.exceptions.InvalidInputException;
+import com.sandcastle.api.exceptions.NotFoundException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.springframework.web.filter.reactive.ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE;
+
+/**
+ * Latency and error metrics of the composite API and of its calls to the core services.
+ *
+ * <ul>
+ *   <li>{@code composite.requests}, tagged with operation, outcome and the HTTP status of the response.</li>
+ *   <li>{@code composite.downstream.requests}, tagged with downstream, operation, outcome and status,
+ *   the HTTP status of the core service or NONE if there was no response. The status is recorded by the
+ *   {@link #responseStatusFilter()} of the WebClients. A hedged call is timed once, from the first attempt
+ *   until the first response.</li>
+ *   <li>{@code composite.partial.responses}, tagged with downstream and exception, counts the failed
+ *   recommendation and review calls that were replaced by an empty list.</li>
+ * </ul>
+ *
+ * Both timers publish percentile histograms, so the percentiles can be aggregated over instances.
+ */
+@Component
+public class CompositeMetrics {
+
+    private static final String NONE = "NONE";
+
+    // The status of the downstream response, set by the responseStatusFilter
+    private static final String RESPONSE_STATUS = CompositeMetrics.class.getName() + ".responseStatus";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public CompositeMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param successStatus The status of a successful response, unless the handler has already set one, e.g. a 304
+     */
+    public <T> Function<Mono<T>, Mono<T>> timedRequest(String operation, String successStatus) {
+        return mono -> Mono.deferContextual(context -> {
+            Optional<ServerWebExchange> exchange = context.getOrEmpty(EXCHANGE_CONTEXT_ATTRIBUTE);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono
+                    .doOnSuccess(value -> stopRequest(sample, operation, "SUCCESS", exchange
+                            .map(e -> e.getResponse().getRawStatusCode())
+                            .map(String::valueOf)
+                            .orElse(successStatus)))
+                    .doOnError(ex -> stopRequest(sample, operation, outcome(ex), responseStatus(ex)))
+                    .doOnCancel(() -> stopRequest(sample, operation, "CANCELLED", NONE));
+        });
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> timedCall(String downstream, String operation) {
+        return mono -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicReference<String> status = new AtomicReference<>(NONE);
+            return mono
+                    .doOnSuccess(value -> stopCall(sample, downstream, operation, "SUCCESS", status.get()))
+                    .doOnError(ex -> stopCall(sample, downstream, operation, outcome(ex), downstreamStatus(ex)))
+                    .doOnCancel(() -> stopCall(sample, downstream, operation, "CANCELLED", NONE))
+                    .contextWrite(Context.of(RESPONSE_STATUS, status));
+        });
+    }
+
+    public <T> Function<Flux<T>, Flux<T>> timedCallMany(String downstream, String operation) {
+        return flux -> Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicReference<String> status = new AtomicReference<>(NONE);
+            return flux
+                    .doOnComplete(() -> stopCall(sample, downstream, operation, "SUCCESS", status.get()))
+                    .doOnError(ex -> stopCall(sample, downstream, operation, outcome(ex), downstreamStatus(ex)))
+                    .doOnCancel(() -> stopCall(sample, downstream, operation, "CANCELLED", NONE))
+                    .contextWrite(Context.of(RESPONSE_STATUS, status));
+        });
+    }
+
+    /**
+     * Records the status of the downstream responses for the timed calls. If a hedged call gets two responses
+     * the status of the last one is kept, they are the same for an idempotent call.
+     */
+    public static ExchangeFilterFunction responseStatusFilter() {
+        return (request, next) -> Mono.deferContextual(context -> next.exchange(request)
+                .doOnNext(response -> context.<AtomicReference<String>>getOrEmpty(RESPONSE_STATUS)
+                        .ifPresent(status -> status.set(String.valueOf(response.rawStatusCode())))));
+    }
+
+    // Events are confirmed by the broker, there is no HTTP status
+    public <T> Function<Mono<T>, Mono<T>> timedPublish(String downstream, String operation) {
+        return mono -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono
+                    .doOnSuccess(value -> stopCall(sample, downstream, operation, "SUCCESS", NONE))
+                    .doOnError(ex -> stopCall(sample, downstream, operation, outcome(ex), NONE))
+                    .doOnCancel(() -> stopCall(sample, downstream, operation, "CANCELLED", NONE));
+        });
+    }
+
+    public void partialResponse(String downstream, Throwable ex) {
+        Counter.builder("composite.partial.responses")
+                .description("Failed downstream calls that were replaced by an empty result")
+                .tag("downstream", downstream)
+                .tag("exception", ex.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void stopRequest(Timer.Sample sample, String operation, String outcome, String status) {
+        sample.stop(Timer.builder("composite.requests")
+                .description("Requests to the composite API")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private void stopCall(Timer.Sample sample, String downstream, String operation, String outcome, String status) {
+        sample.stop(Timer.builder("composite.downstream.requests")
+                .description("Calls from the composite to the core services")
+                .tag("downstream", downstream)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private String outcome(Throwable ex) {
+        if (ex instanceof TimeoutException) {
+            return "TIMEOUT";
+        }
+        if (ex instanceof CallNotPermittedException || ex instanceof BulkheadFullException || ex instanceof EventQueueFullException) {
+            return "REJECTED";
+        }
+        if (ex instanceof NotFoundException || ex instanceof InvalidInputException) {
+            return "CLIENT_ERROR";
+        }
+        if (ex instanceof WebClientResponseException) {
+            return ((WebClientResponseException) ex).getStatusCode().is4xxClientError() ? "CLIENT_ERROR" : "SERVER_ERROR";
+        }
+        return "ERROR";
+    }
+
+    private String downstreamStatus(Throwable ex) {
+        return ex instanceof WebClientResponseException
+                ? String.valueOf(((WebClientResponseException) ex).getRawStatusCode())
+                : NONE;
+    }
+
+    // The status the composite responds with, see the exception handlers
+    private String responseStatus(Throwable ex) {
+        if (ex instanceof NotFoundException) {
+            return "404";
+        }
+        if (ex instanceof InvalidInputException) {
+            return "422";
+        }
+        if (ex instanceof CallNotPermittedException || ex instanceof BulkheadFullException || ex instanceof EventQueueFullException) {
+            return "503";
+        }
+        return "500";
+    }
+}
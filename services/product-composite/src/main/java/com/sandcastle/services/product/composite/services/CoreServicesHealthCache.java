@@ -0,0 +1,116 @@
+package com.sandcastle.services.product.composite.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The health of the core services, checked in the background and served from memory.
+ *
+ * Every refreshInterval all core services are checked in parallel, a new round only starts
+ * when the previous one is done. Health probes only read the last result, so they never call
+ * the core services themselves. A result older than ttl, e.g. because the checks stopped,
+ * is reported as UNKNOWN.
+ */
+@Component
+public class CoreServicesHealthCache {
+    private static final Logger LOG = LoggerFactory.getLogger(CoreServicesHealthCache.class);
+
+    private final Map<String, Supplier<Mono<Health>>> checks = new LinkedHashMap<>();
+    private final Map<String, CachedHealth> cache = new ConcurrentHashMap<>();
+
+    private final Duration refreshInterval;
+    private final Duration ttl;
+    private final Duration timeout;
+
+    private Disposable refresher;
+
+    @Autowired
+    public CoreServicesHealthCache(
+            ProductCompositeIntegration integration,
+            @Value("${app.health.refreshInterval:10s}") Duration refreshInterval,
+            @Value("${app.health.ttl:30s}") Duration ttl,
+            @Value("${app.health.timeout:2s}") Duration timeout) {
+
+        this.refreshInterval = refreshInterval;
+        this.ttl = ttl;
+        this.timeout = timeout;
+
+        checks.put("product", integration::getProductHealth);
+        checks.put("recommendation", integration::getRecommendationHealth);
+        checks.put("review", integration::getReviewHealth);
+    }
+
+    @PostConstruct
+    void start() {
+        LOG.info("Checks the health of the core services every {}, ttl: {}", refreshInterval, ttl);
+        refresher = Flux.interval(Duration.ZERO, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.dispose();
+    }
+
+    public Set<String> getServices() {
+        return checks.keySet();
+    }
+
+    public Health getHealth(String service) {
+        CachedHealth cached = cache.get(service);
+
+        if (cached == null) {
+            return Health.unknown().withDetail("reason", "Not checked yet").build();
+        }
+
+        if (cached.checkedAt.plus(ttl).isBefore(Instant.now())) {
+            return Health.unknown()
+                    .withDetail("reason", "Last check is older than " + ttl)
+                    .withDetail("checkedAt", cached.checkedAt.toString())
+                    .build();
+        }
+
+        return cached.health;
+    }
+
+    public Mono<Void> refresh() {
+        return Flux.fromIterable(checks.entrySet())
+                .flatMap(check -> Mono.defer(check.getValue())
+                        .timeout(timeout)
+                        .onErrorResume(ex -> Mono.just(Health.down().withDetail("error", ex.toString()).build()))
+                        .doOnNext(health -> cache.put(check.getKey(), new CachedHealth(health, Instant.now()))))
+                .then();
+    }
+
+    private static class CachedHealth {
+        private final Health health;
+        private final Instant checkedAt;
+
+        CachedHealth(Health health, Instant checkedAt) {
+            this.health = Health.status(health.getStatus())
+                    .withDetails(health.getDetails())
+                    .withDetail("checkedAt", checkedAt.toString())
+                    .build();
+            this.checkedAt = checkedAt;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.sandcastle.services.product.composite.services;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+import com.sandcastle.common.http.HttpErrorInfo;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Calls rejected by an open circuit breaker or a full bulkhead, and events rejected
+ * by a full publish queue, are reported as 503 Service Unavailable instead of a generic 500.
+ */
+@RestControllerAdvice
+class DownstreamUnavailableExceptionHandler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DownstreamUnavailableExceptionHandler.class);
+
+  @ResponseStatus(SERVICE_UNAVAILABLE)
+  @ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class, EventQueueFullException.class})
+  public @ResponseBody HttpErrorInfo handleRejectedCall(ServerHttpRequest request, RuntimeException ex) {
+
+    final String path = request.getPath().pathWithinApplication().value();
+
+    LOG.debug("Returning HTTP status: {} for path: {}, message: {}", SERVICE_UNAVAILABLE, path, ex.getMessage());
+    return new HttpErrorInfo(SERVICE_UNAVAILABLE, path, ex.getMessage());
+  }
+}
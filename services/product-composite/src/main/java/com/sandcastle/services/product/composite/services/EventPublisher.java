@@ -0,0 +1,224 @@
+package com.sandcastle.services.product.composite.services;
+
+import com.sandcastle.api.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceContext;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.propagation.Propagator;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.concurrent.Queues;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static reactor.core.publisher.Sinks.EmitResult.FAIL_NON_SERIALIZED;
+
+/**
+ * Publishes events to the core services without holding a thread per event.
+ *
+ * Events are queued and sent in order by one worker of the publishEventScheduler. The returned
+ * Mono completes when the broker has confirmed the event, i.e. on a RabbitMQ publisher confirm or
+ * when the Kafka producer has the record metadata. Up to maxInFlight events wait for their confirms
+ * at the same time, further events wait in the queue, and when the queue is full publishing fails fast.
+ *
+ * Each event gets a producer span, a child of the span that published it, from the time it is queued
+ * until it is confirmed. Its trace context is sent in the message headers, so the consumer spans of the
+ * core services join the trace of the request.
+ */
+@Component
+public class EventPublisher {
+    private static final Logger LOG = LoggerFactory.getLogger(EventPublisher.class);
+
+    public static final String KAFKA_SEND_RESULTS = "kafkaSendResults";
+
+    private static final String CORRELATION_ID = "eventCorrelationId";
+
+    private final StreamBridge streamBridge;
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    private final boolean confirms;
+    private final boolean kafka;
+    private final Duration confirmTimeout;
+
+    private final Sinks.Many<PendingEvent> queue;
+    private final Disposable worker;
+
+    // Kafka sends waiting for their record metadata, by correlation id
+    private final Map<String, Sinks.Empty<Void>> pendingKafkaSends = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EventPublisher(
+            @Qualifier("publishEventScheduler") Scheduler publishEventScheduler,
+            StreamBridge streamBridge,
+            Tracer tracer,
+            Propagator propagator,
+            @Qualifier(KAFKA_SEND_RESULTS) SubscribableChannel kafkaSendResults,
+            @Qualifier("errorChannel") SubscribableChannel errorChannel,
+            @Value("${spring.cloud.stream.defaultBinder:rabbit}") String binder,
+            @Value("${app.publish.confirms:true}") boolean confirms,
+            @Value("${app.publish.confirmTimeout:10s}") Duration confirmTimeout,
+            @Value("${app.publish.maxInFlight:256}") int maxInFlight,
+            @Value("${app.publish.queueSize:1024}") int queueSize) {
+
+        this.streamBridge = streamBridge;
+        this.tracer = tracer;
+        this.propagator = propagator;
+        this.confirms = confirms;
+        this.kafka = "kafka".equals(binder);
+        this.confirmTimeout = confirmTimeout;
+
+        kafkaSendResults.subscribe(this::onKafkaSendResult);
+        errorChannel.subscribe(this::onSendFailure);
+
+        queue = Sinks.many().unicast().onBackpressureBuffer(Queues.<PendingEvent>get(queueSize).get());
+        worker = queue.asFlux()
+                .publishOn(publishEventScheduler)
+                .flatMap(this::sendAndAwaitConfirm, maxInFlight)
+                .subscribe();
+
+        LOG.info("Publishes events with confirms: {}, binder: {}, maxInFlight: {}, queueSize: {}", confirms, binder, maxInFlight, queueSize);
+    }
+
+    public Mono<Void> publish(String bindingName, Event<?, ?> event) {
+        return Mono.defer(() -> {
+            PendingEvent pending = new PendingEvent(bindingName, event, startProducerSpan(bindingName, event));
+
+            Sinks.EmitResult result;
+            while ((result = queue.tryEmitNext(pending)) == FAIL_NON_SERIALIZED) {
+                Thread.onSpinWait();
+            }
+
+            if (result.isFailure()) {
+                EventQueueFullException ex = new EventQueueFullException("Too many events waiting to be published, " + event.getEventType() + " event to " + bindingName + " rejected");
+                pending.span.error(ex).end();
+                return Mono.error(ex);
+            }
+            return pending.result.asMono();
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        queue.tryEmitComplete();
+        worker.dispose();
+    }
+
+    // The span of the caller, if any, is lost when the event is queued
+    private Span startProducerSpan(String bindingName, Event<?, ?> event) {
+        Span parent = tracer.currentSpan();
+        Span.Builder span = tracer.spanBuilder()
+                .name("publish " + bindingName)
+                .kind(Span.Kind.PRODUCER)
+                .tag("event.type", event.getEventType().toString());
+        return (parent == null ? span.setNoParent() : span.setParent(parent.context())).start();
+    }
+
+    // Never fails, so that one failed event does not stop the worker
+    private Mono<Void> sendAndAwaitConfirm(PendingEvent pending) {
+        return Mono.defer(() -> {
+                    try (Tracer.SpanInScope ws = tracer.withSpan(pending.span.event("dequeued"))) {
+                        return send(pending.bindingName, pending.event, pending.span.context());
+                    }
+                })
+                .timeout(confirmTimeout)
+                .doOnSuccess(v -> {
+                    pending.span.end();
+                    pending.result.tryEmitEmpty();
+                })
+                .doOnError(ex -> {
+                    LOG.warn("Failed to publish a {} event to {}: {}", pending.event.getEventType(), pending.bindingName, ex.toString());
+                    pending.span.error(ex).end();
+                    pending.result.tryEmitError(ex);
+                })
+                .onErrorResume(ex -> Mono.empty());
+    }
+
+    private Mono<Void> send(String bindingName, Event<?, ?> event, TraceContext traceContext) {
+        LOG.debug("Sending a {} message to {}", event.getEventType(), bindingName);
+
+        String correlationId = UUID.randomUUID().toString();
+        MessageBuilder<Event<?, ?>> message = MessageBuilder.<Event<?, ?>>withPayload(event)
+                .setHeader("partitionKey", event.getKey())
+                .setHeader(CORRELATION_ID, correlationId);
+        propagator.inject(traceContext, message, MessageBuilder::setHeader);
+
+        if (!confirms) {
+            streamBridge.send(bindingName, message.build());
+            return Mono.empty();
+        }
+
+        if (kafka) {
+            Sinks.Empty<Void> confirm = Sinks.empty();
+            pendingKafkaSends.put(correlationId, confirm);
+            streamBridge.send(bindingName, message.build());
+            return confirm.asMono()
+                    .doFinally(signal -> pendingKafkaSends.remove(correlationId));
+        }
+
+        CorrelationData correlationData = new CorrelationData(correlationId);
+        streamBridge.send(bindingName, message.setHeader(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION, correlationData).build());
+        return Mono.fromFuture(correlationData.getFuture().completable())
+                .flatMap(confirm -> confirm.isAck()
+                        ? Mono.empty()
+                        : Mono.error(new MessageDeliveryException("Event to " + bindingName + " was not confirmed by the broker: " + confirm.getReason())));
+    }
+
+    private void onKafkaSendResult(Message<?> message) {
+        Sinks.Empty<Void> confirm = getPendingKafkaSend(message);
+        if (confirm != null) {
+            confirm.tryEmitEmpty();
+        }
+    }
+
+    // The error channel also gets the errors of the consumers, they have no correlation id
+    private void onSendFailure(Message<?> message) {
+        if (!(message.getPayload() instanceof MessagingException)) {
+            return;
+        }
+
+        MessagingException failure = (MessagingException) message.getPayload();
+        Sinks.Empty<Void> confirm = getPendingKafkaSend(failure.getFailedMessage());
+        if (confirm != null) {
+            confirm.tryEmitError(failure);
+        }
+    }
+
+    private Sinks.Empty<Void> getPendingKafkaSend(Message<?> message) {
+        String correlationId = message == null ? null : message.getHeaders().get(CORRELATION_ID, String.class);
+        return correlationId == null ? null : pendingKafkaSends.get(correlationId);
+    }
+
+    private static class PendingEvent {
+        private final String bindingName;
+        private final Event<?, ?> event;
+        private final Span span;
+        private final Sinks.Empty<Void> result = Sinks.empty();
+
+        PendingEvent(String bindingName, Event<?, ?> event, Span span) {
+            this.bindingName = bindingName;
+            this.event = event;
+            this.span = span;
+        }
+    }
+}
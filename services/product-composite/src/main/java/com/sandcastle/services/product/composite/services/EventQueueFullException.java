@@ -0,0 +1,11 @@
+package com.sandcastle.services.product.composite.services;
+
+/**
+ * Thrown when more events wait to be published than the queue of the {@link EventPublisher} holds.
+ */
+class EventQueueFullException extends RuntimeException {
+
+  EventQueueFullException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,38 @@
+package com.sandcastle.services.product.composite.services;
+
+import com.sandcastle.api.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Consumer;
+
+@Configuration
+public class MessageProcessorConfig {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MessageProcessorConfig.class);
+
+  private final ProductAggregateCache aggregateCache;
+
+  @Autowired
+  public MessageProcessorConfig(ProductAggregateCache aggregateCache) {
+    this.aggregateCache = aggregateCache;
+  }
+
+  /**
+   * Listens to the products, recommendations and reviews topics, and evicts
+   * cached aggregates when any part of a product is created or deleted.
+   */
+  @Bean
+  public Consumer<Event<Integer, Object>> aggregateCacheInvalidator() {
+    return event -> {
+      LOG.debug("Evict cached aggregate on {} event for ProductID: {}", event.getEventType(), event.getKey());
+
+      if (event.getKey() != null) {
+        aggregateCache.evict(event.getKey());
+      }
+    };
+  }
+}
@@ -0,0 +1,105 @@
+package com.sandcastle.services.product.composite.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sandcastle.api.composite.product.ProductAggregate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of assembled product aggregates.
+ *
+ * Entries are bounded in number and expire after a TTL, and they are evicted
+ * as soon as the composite sees a CREATE or DELETE event for the product.
+ */
+@Component
+public class ProductAggregateCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ProductAggregateCache.class);
+
+    private final boolean enabled;
+
+    private final Cache<Integer, ProductAggregate> cache;
+
+    // The last eviction of each product, used to avoid caching aggregates that were loaded before an
+    // eviction of their product but completed after it. Kept as long as a cached aggregate, loads are
+    // much shorter than that
+    private final Cache<Integer, Long> evictions;
+    private final AtomicLong evictionSequence = new AtomicLong();
+
+    @Autowired
+    public ProductAggregateCache(
+            @Value("${app.aggregateCache.enabled:true}") boolean enabled,
+            @Value("${app.aggregateCache.maxSize:10000}") long maxSize,
+            @Value("${app.aggregateCache.ttl:30s}") Duration ttl,
+            MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.evictions = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productAggregates");
+
+        LOG.info("Creates a product aggregate cache, enabled = {}, max size = {}, ttl = {}", enabled, maxSize, ttl);
+    }
+
+    public Mono<ProductAggregate> get(int productId, Supplier<Mono<ProductAggregate>> loader) {
+
+        if (!enabled) {
+            return Mono.defer(loader);
+        }
+
+        return Mono.defer(() -> {
+            ProductAggregate cached = cache.getIfPresent(productId);
+            if (cached != null) {
+                LOG.debug("Found a cached product aggregate for productId: {}", productId);
+                return Mono.just(cached);
+            }
+
+            long loadStart = evictionSequence.get();
+            return loader.get()
+                    .doOnNext(aggregate -> {
+                        if (!evictedSince(productId, loadStart)) {
+                            cache.put(productId, aggregate);
+                            // An eviction between the check and the put
+                            if (evictedSince(productId, loadStart)) {
+                                cache.invalidate(productId);
+                            }
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Returns the cached aggregate without loading it, empty if it is not cached.
+     */
+    public Mono<ProductAggregate> getIfPresent(int productId) {
+        return enabled ? Mono.fromSupplier(() -> cache.getIfPresent(productId)) : Mono.empty();
+    }
+
+    public void evict(int productId) {
+        evictions.put(productId, evictionSequence.incrementAndGet());
+        cache.invalidate(productId);
+        LOG.debug("Evicted the product aggregate for productId: {}", productId);
+    }
+
+    private boolean evictedSince(int productId, long sequence) {
+        Long evicted = evictions.getIfPresent(productId);
+        return evicted != null && evicted > sequence;
+    }
+}
@@ -0,0 +1,74 @@
+package com.sandcastle.services.product.composite.services;
+
+import com.sandcastle.api.composite.product.ProductAggregate;
+import com.sandcastle.api.composite.product.RecommendationSummary;
+import com.sandcastle.api.composite.product.ReviewSummary;
+import com.sandcastle.api.composite.product.ServiceAddresses;
+import com.sandcastle.api.core.product.Product;
+import com.sandcastle.api.core.recommendation.Recommendation;
+import com.sandcastle.api.core.review.Review;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.sandcastle.common.http.ConditionalRequests.weakETag;
+
+/**
+ * Assembly of product aggregates, shared by the composite service, the read model and the benchmarks.
+ */
+public final class ProductAggregates {
+
+    private ProductAggregates() {}
+
+    /**
+     * Merges the responses of the core services into a product aggregate, without an ETag.
+     */
+    public static ProductAggregate create(Product product, List<Recommendation> recommendations, List<Review> reviews, String serviceAddress,
+                                          Integer recommendationsNextCursor, Integer reviewsNextCursor) {
+
+        // 1. Setup product info
+        int productId = product.getProductId();
+        String name = product.getName();
+        int weight = product.getWeight();
+
+        // 2. Copy summary recommendation info, if available
+        List<RecommendationSummary> recommendationSummaries = (recommendations == null) ? null :
+                recommendations.stream()
+                        .map(r -> new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent()))
+                        .collect(Collectors.toList());
+
+        // 3. Copy summary review info, if available
+        List<ReviewSummary> reviewSummaries = (reviews == null)  ? null :
+                reviews.stream()
+                        .map(r -> new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent()))
+                        .collect(Collectors.toList());
+
+        // 4. Create info regarding the involved microservices addresses
+        String productAddress = product.getServiceAddress();
+        String reviewAddress = (reviews != null && reviews.size() > 0) ? reviews.get(0).getServiceAddress() : "";
+        String recommendationAddress = (recommendations != null && recommendations.size() > 0) ? recommendations.get(0).getServiceAddress() : "";
+        ServiceAddresses serviceAddresses = new ServiceAddresses(serviceAddress, productAddress, reviewAddress, recommendationAddress);
+
+        return new ProductAggregate(productId, name, weight, recommendationSummaries, reviewSummaries, serviceAddresses,
+                recommendationsNextCursor, reviewsNextCursor);
+    }
+
+    /**
+     * The ETag changes when any part of the aggregate is created, updated or deleted. The parts are sorted by id,
+     * so an aggregate has the same ETag whether it was assembled from the core services or from the read model.
+     */
+    public static String etag(int productId, Integer productVersion, Collection<Recommendation> recommendations, Collection<Review> reviews) {
+        return weakETag(Stream.concat(
+                Stream.of(productId + ":" + productVersion),
+                Stream.concat(
+                        recommendations.stream()
+                                .sorted(Comparator.comparingInt(Recommendation::getRecommendationId))
+                                .map(r -> "rec" + r.getRecommendationId() + ":" + r.getVersion()),
+                        reviews.stream()
+                                .sorted(Comparator.comparingInt(Review::getReviewId))
+                                .map(r -> "rev" + r.getReviewId() + ":" + r.getVersion()))));
+    }
+}
@@ -10,23 +10,31 @@ import com.sandcastle.api.core.review.ReviewService;
 import com.sandcastle.api.event.Event;
 import com.sandcastle.api.exceptions.*;
 import com.sandcastle.common.http.HttpErrorInfo;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
-import org.springframework.cloud.stream.function.StreamBridge;
-import org.springframework.messaging.Message;
-import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Scheduler;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.sandcastle.api.event.Event.Type.CREATE;
 import static com.sandcastle.api.event.Event.Type.DELETE;
@@ -38,44 +46,99 @@ public class ProductCompositeIntegration
         implements ProductService, RecommendationService, ReviewService {
     private static final Logger LOG = LoggerFactory.getLogger(ProductCompositeIntegration.class);
 
-    private final WebClient webClient;
+    private final WebClient productWebClient;
+    private final WebClient recommendationWebClient;
+    private final WebClient reviewWebClient;
+
+    // Hedged requests are sent with their own connections, see WebClientConfig
+    private final WebClient productHedgeWebClient;
+    private final WebClient recommendationHedgeWebClient;
+    private final WebClient reviewHedgeWebClient;
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
     private final ObjectMapper mapper;
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+
+    private final EventPublisher eventPublisher;
 
-    private final StreamBridge streamBridge;
+    private final CompositeMetrics metrics;
 
-    private final Scheduler publishEventScheduler;
+    private final RequestCoalescer coalescer;
+    private final RequestHedger hedger;
 
     private final String productServiceUrl;
     private final String recommendationServiceUrl;
     private final String reviewServiceUrl;
 
+    private final Duration productServiceTimeout;
+    private final Duration recommendationServiceTimeout;
+    private final Duration reviewServiceTimeout;
+
+    private final CircuitBreaker productCircuitBreaker;
+    private final CircuitBreaker recommendationCircuitBreaker;
+    private final CircuitBreaker reviewCircuitBreaker;
+
+    private final Bulkhead productBulkhead;
+    private final Bulkhead recommendationBulkhead;
+    private final Bulkhead reviewBulkhead;
+
     @Autowired
     public ProductCompositeIntegration(
-            @Qualifier("publishEventScheduler") Scheduler publishEventScheduler,
-
-            WebClient.Builder webClient,
+            @Qualifier("productWebClient") WebClient productWebClient,
+            @Qualifier("recommendationWebClient") WebClient recommendationWebClient,
+            @Qualifier("reviewWebClient") WebClient reviewWebClient,
+            @Qualifier("productHedgeWebClient") WebClient productHedgeWebClient,
+            @Qualifier("recommendationHedgeWebClient") WebClient recommendationHedgeWebClient,
+            @Qualifier("reviewHedgeWebClient") WebClient reviewHedgeWebClient,
             ObjectMapper mapper,
-            StreamBridge streamBridge,
+            EventPublisher eventPublisher,
+            CompositeMetrics metrics,
+            RequestCoalescer coalescer,
+            RequestHedger hedger,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
 
             @Value("${app.product.host}") String productServiceHost,
             @Value("${app.product.port}") int productServicePort,
+            @Value("${app.product.timeout:2s}") Duration productServiceTimeout,
 
             @Value("${app.recommendation.host}") String recommendationServiceHost,
             @Value("${app.recommendation.port}") int recommendationServicePort,
+            @Value("${app.recommendation.timeout:2s}") Duration recommendationServiceTimeout,
 
             @Value("${app.review.host}") String reviewServiceHost,
-            @Value("${app.review.port}") int reviewServicePort) {
-
-        this.publishEventScheduler = publishEventScheduler;
-
-        this.webClient = webClient.build();
+            @Value("${app.review.port}") int reviewServicePort,
+            @Value("${app.review.timeout:2s}") Duration reviewServiceTimeout) {
+
+        this.productWebClient        = productWebClient;
+        this.recommendationWebClient = recommendationWebClient;
+        this.reviewWebClient         = reviewWebClient;
+        this.productHedgeWebClient        = productHedgeWebClient;
+        this.recommendationHedgeWebClient = recommendationHedgeWebClient;
+        this.reviewHedgeWebClient         = reviewHedgeWebClient;
         this.mapper = mapper;
-        this.streamBridge = streamBridge;
+        this.eventPublisher = eventPublisher;
+        this.metrics = metrics;
+        this.coalescer = coalescer;
+        this.hedger = hedger;
 
         productServiceUrl        = "http://" + productServiceHost + ":" + productServicePort;
         recommendationServiceUrl = "http://" + recommendationServiceHost + ":" + recommendationServicePort;
         reviewServiceUrl         = "http://" + reviewServiceHost + ":" + reviewServicePort;
 
+        this.productServiceTimeout        = productServiceTimeout;
+        this.recommendationServiceTimeout = recommendationServiceTimeout;
+        this.reviewServiceTimeout         = reviewServiceTimeout;
+
+        productCircuitBreaker        = circuitBreakerRegistry.circuitBreaker("product");
+        recommendationCircuitBreaker = circuitBreakerRegistry.circuitBreaker("recommendation");
+        reviewCircuitBreaker         = circuitBreakerRegistry.circuitBreaker("review");
+
+        productBulkhead        = bulkheadRegistry.bulkhead("product");
+        recommendationBulkhead = bulkheadRegistry.bulkhead("recommendation");
+        reviewBulkhead         = bulkheadRegistry.bulkhead("review");
+
         LOG.info("PRODUCT URL : " + productServiceUrl);
         LOG.info("REVIEW URL : " + reviewServiceUrl);
         LOG.info("RECOMMENDATION URL : " + recommendationServiceUrl);
@@ -84,20 +147,59 @@ public class ProductCompositeIntegration
 
     @Override
     public Mono<Product> createProduct(Product body) {
-        return Mono
-                .fromCallable(() -> {
-                    sendMessage("products-out-0",
-                        new Event(CREATE, body.getProductId(), body));
-                    return body;
-                })
-                .subscribeOn(publishEventScheduler);
+        return eventPublisher.publish("products-out-0", new Event(CREATE, body.getProductId(), body))
+                .transform(metrics.timedPublish("product", "createProduct"))
+                .thenReturn(body);
     }
 
     @Override
     public Mono<Product> getProduct(int productId) {
         String url = productServiceUrl + "/product/" + productId;
-        return webClient.get().uri(url).retrieve()
-                .bodyToMono(Product.class)
+        Function<WebClient, Mono<Product>> call = client ->
+                client.get().uri(url).retrieve()
+                        .bodyToMono(Product.class)
+                        .timeout(productServiceTimeout)
+                        .transformDeferred(BulkheadOperator.of(productBulkhead))
+                        .transformDeferred(CircuitBreakerOperator.of(productCircuitBreaker));
+
+        return coalescer.coalesce("product", productId, () ->
+                hedger.hedge("product", () -> call.apply(productWebClient), () -> call.apply(productHedgeWebClient))
+                        .transform(metrics.timedCall("product", "getProduct"))
+                        .log(LOG.getName(), FINE)
+                        .onErrorMap(WebClientResponseException.class,
+                                ex -> handleException(ex)
+                        ));
+    }
+
+    @Override
+    public Flux<Product> getProducts(List<Integer> productIds) {
+        String url = productServiceUrl + "/product?ids=" + joinIds(productIds);
+        return productWebClient.get().uri(url).retrieve()
+                .bodyToFlux(Product.class)
+                .timeout(productServiceTimeout)
+                .transformDeferred(BulkheadOperator.of(productBulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(productCircuitBreaker))
+                .transform(metrics.timedCallMany("product", "getProducts"))
+                .log(LOG.getName(), FINE)
+                .onErrorMap(WebClientResponseException.class,
+                        ex -> handleException(ex)
+                );
+    }
+
+    @Override
+    public Flux<Product> streamProducts(int fromId, int toId) {
+        String url = productServiceUrl + "/product/stream?fromId=" + fromId + "&toId=" + toId;
+
+        // The timeout applies between products, not to the whole stream.
+        // A stream holds its bulkhead permit until it completes or is cancelled.
+        return productWebClient.get().uri(url)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(Product.class)
+                .timeout(productServiceTimeout)
+                .transformDeferred(BulkheadOperator.of(productBulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(productCircuitBreaker))
+                .transform(metrics.timedCallMany("product", "streamProducts"))
                 .log(LOG.getName(), FINE)
                 .onErrorMap(WebClientResponseException.class,
                         ex -> handleException(ex)
@@ -107,61 +209,97 @@ public class ProductCompositeIntegration
     @Override
     public Mono<Void> deleteProduct(int productId) {
 
-        return Mono
-                .fromRunnable(() ->
-                        sendMessage("products-out-0",
-                                new Event(DELETE, productId, null)))
-                .subscribeOn(publishEventScheduler)
-                .then();
+        return eventPublisher.publish("products-out-0", new Event(DELETE, productId, null))
+                .transform(metrics.timedPublish("product", "deleteProduct"));
     }
 
 
     @Override
     public Mono<Recommendation> createRecommendation(Recommendation body) {
 
-        return Mono
-                .fromCallable(() -> {
-                    sendMessage("recommendations-out-0",
-                            new Event(CREATE, body.getProductId(), body));
-                    return body;
+        return eventPublisher.publish("recommendations-out-0", new Event(CREATE, body.getProductId(), body))
+                .transform(metrics.timedPublish("recommendation", "createRecommendation"))
+                .thenReturn(body);
+    }
 
-                })
-                .subscribeOn(publishEventScheduler);
+    @Override
+    public Flux<Recommendation> createRecommendations(int productId, List<Recommendation> body) {
 
+        return eventPublisher.publish("recommendations-out-0", Event.batch(productId, body))
+                .transform(metrics.timedPublish("recommendation", "createRecommendations"))
+                .thenMany(Flux.fromIterable(body));
     }
 
     @Override
     public Flux<Recommendation> getRecommendations(int productId) {
 
         String url = recommendationServiceUrl + "/recommendation?productId=" + productId;
+        Function<WebClient, Mono<List<Recommendation>>> call = client ->
+                client.get().uri(url).retrieve()
+                        .bodyToFlux(Recommendation.class)
+                        .timeout(recommendationServiceTimeout)
+                        .transformDeferred(BulkheadOperator.of(recommendationBulkhead))
+                        .transformDeferred(CircuitBreakerOperator.of(recommendationCircuitBreaker))
+                        .collectList();
+
+        // Return an empty result if something goes wrong to make it
+        // possible for the composite service to return partial responses
+        return coalescer.coalesceMany("recommendation", productId, () ->
+                hedger.hedge("recommendation", () -> call.apply(recommendationWebClient), () -> call.apply(recommendationHedgeWebClient))
+                        .transform(metrics.timedCall("recommendation", "getRecommendations"))
+                        .flatMapIterable(recommendations -> recommendations)
+                        .log(LOG.getName(), FINE)
+                        .onErrorResume(error -> partialResponse("recommendation", error)));
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendationsForProducts(List<Integer> productIds) {
+
+        String url = recommendationServiceUrl + "/recommendation?productIds=" + joinIds(productIds);
         // Return an empty result if something goes wrong to make it
         // possible for the composite service to return partial responses
-        return webClient.get().uri(url).retrieve()
+        return recommendationWebClient.get().uri(url).retrieve()
                 .bodyToFlux(Recommendation.class)
+                .timeout(recommendationServiceTimeout)
+                .transformDeferred(BulkheadOperator.of(recommendationBulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(recommendationCircuitBreaker))
+                .transform(metrics.timedCallMany("recommendation", "getRecommendationsForProducts"))
                 .log(LOG.getName(), FINE)
-                .onErrorResume(error -> empty());
+                .onErrorResume(error -> partialResponse("recommendation", error));
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendationsPage(int productId, int cursor, int limit) {
+        String url = recommendationServiceUrl + "/recommendation?productId=" + productId + "&cursor=" + cursor + "&limit=" + limit;
+        return recommendationWebClient.get().uri(url).retrieve()
+                .bodyToFlux(Recommendation.class)
+                .timeout(recommendationServiceTimeout)
+                .transformDeferred(BulkheadOperator.of(recommendationBulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(recommendationCircuitBreaker))
+                .transform(metrics.timedCallMany("recommendation", "getRecommendationsPage"))
+                .log(LOG.getName(), FINE)
+                .onErrorResume(error -> partialResponse("recommendation", error));
     }
 
     @Override
     public Mono<Void> deleteRecommendations(int productId) {
-        return Mono
-                .fromRunnable(() ->
-                        sendMessage("recommendations-out-0",
-                                new Event(DELETE, productId, null)))
-                .subscribeOn(publishEventScheduler)
-                .then();
+        return eventPublisher.publish("recommendations-out-0", new Event(DELETE, productId, null))
+                .transform(metrics.timedPublish("recommendation", "deleteRecommendations"));
     }
 
 
     @Override
     public Mono<Review> createReview(Review body) {
-        return Mono
-                .fromCallable(() -> {
-                    sendMessage("reviews-out-0",
-                            new Event(CREATE, body.getProductId(), body));
-                    return body;
-                })
-                .subscribeOn(publishEventScheduler);
+        return eventPublisher.publish("reviews-out-0", new Event(CREATE, body.getProductId(), body))
+                .transform(metrics.timedPublish("review", "createReview"))
+                .thenReturn(body);
+    }
+
+    @Override
+    public Flux<Review> createReviews(int productId, List<Review> body) {
+        return eventPublisher.publish("reviews-out-0", Event.batch(productId, body))
+                .transform(metrics.timedPublish("review", "createReviews"))
+                .thenMany(Flux.fromIterable(body));
     }
 
     @Override
@@ -171,32 +309,75 @@ public class ProductCompositeIntegration
 
         LOG.debug("Will call the getReviews API on URL: {}", url);
 
+        Function<WebClient, Mono<List<Review>>> call = client ->
+                client.get()
+                        .uri(url)
+                        .retrieve()
+                        .bodyToFlux(Review.class)
+                        .timeout(reviewServiceTimeout)
+                        .transformDeferred(BulkheadOperator.of(reviewBulkhead))
+                        .transformDeferred(CircuitBreakerOperator.of(reviewCircuitBreaker))
+                        .collectList();
+
         // Return an empty result if something goes wrong to make it possible
         // for the composite service to return partial responses
-        return webClient.get()
+        return coalescer.coalesceMany("review", productId, () ->
+                hedger.hedge("review", () -> call.apply(reviewWebClient), () -> call.apply(reviewHedgeWebClient))
+                        .transform(metrics.timedCall("review", "getReviews"))
+                        .flatMapIterable(reviews -> reviews)
+                        .log(LOG.getName(), FINE)
+                        .onErrorResume(error -> partialResponse("review", error)));
+    }
+
+    @Override
+    public Flux<Review> getReviewsForProducts(List<Integer> productIds) {
+
+        String url = reviewServiceUrl + "/review?productIds=" + joinIds(productIds);
+
+        LOG.debug("Will call the getReviewsForProducts API on URL: {}", url);
+
+        // Return an empty result if something goes wrong to make it possible
+        // for the composite service to return partial responses
+        return reviewWebClient.get()
                 .uri(url)
                 .retrieve()
                 .bodyToFlux(Review.class)
+                .timeout(reviewServiceTimeout)
+                .transformDeferred(BulkheadOperator.of(reviewBulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(reviewCircuitBreaker))
+                .transform(metrics.timedCallMany("review", "getReviewsForProducts"))
                 .log(LOG.getName(), FINE)
-                .onErrorResume(error -> empty());
+                .onErrorResume(error -> partialResponse("review", error));
+    }
+
+    @Override
+    public Flux<Review> getReviewsPage(int productId, int cursor, int limit) {
+        String url = reviewServiceUrl + "/review?productId=" + productId + "&cursor=" + cursor + "&limit=" + limit;
+        return reviewWebClient.get().uri(url).retrieve()
+                .bodyToFlux(Review.class)
+                .timeout(reviewServiceTimeout)
+                .transformDeferred(BulkheadOperator.of(reviewBulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(reviewCircuitBreaker))
+                .transform(metrics.timedCallMany("review", "getReviewsPage"))
+                .log(LOG.getName(), FINE)
+                .onErrorResume(error -> partialResponse("review", error));
     }
 
     @Override
     public Mono<Void> deleteReviews(int productId) {
-        return Mono
-                .fromRunnable(() ->
-                    sendMessage("reviews-out-0",
-                            new Event(DELETE, productId, null)))
-                .subscribeOn(publishEventScheduler)
-                .then();
+        return eventPublisher.publish("reviews-out-0", new Event(DELETE, productId, null))
+                .transform(metrics.timedPublish("review", "deleteReviews"));
+    }
+
+    // The composite returns a partial response instead, count it to make degraded core services visible
+    private <T> Flux<T> partialResponse(String downstream, Throwable error) {
+        LOG.debug("Returns a partial response without {}: {}", downstream, error.toString());
+        metrics.partialResponse(downstream, error);
+        return empty();
     }
 
-    private void sendMessage(String bindingName, Event event) {
-        LOG.debug("Sending a {} message to {}", event.getEventType(), bindingName);
-        Message message = MessageBuilder.withPayload(event)
-                .setHeader("partitionKey", event.getKey())
-                .build();
-        streamBridge.send(bindingName, message);
+    private String joinIds(List<Integer> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
     }
 
     private Throwable handleException(Throwable ex) {
@@ -225,25 +406,28 @@ public class ProductCompositeIntegration
 
     private String getErrorMessage(WebClientResponseException ex) {
         try {
-            return mapper.readValue(ex.getResponseBodyAsString(), HttpErrorInfo.class).getMessage();
+            // The error body is encoded in the format that was negotiated for the request
+            MediaType contentType = ex.getHeaders().getContentType();
+            ObjectMapper errorMapper = SMILE.isCompatibleWith(contentType) ? smileMapper : mapper;
+            return errorMapper.readValue(ex.getResponseBodyAsByteArray(), HttpErrorInfo.class).getMessage();
         } catch (IOException ioex) {
             return ex.getMessage();
         }
     }
 
     public Mono<Health> getProductHealth() {
-        return getHealth(productServiceUrl);
+        return getHealth(productWebClient, productServiceUrl);
     }
 
     public Mono<Health> getRecommendationHealth() {
-        return getHealth(recommendationServiceUrl);
+        return getHealth(recommendationWebClient, recommendationServiceUrl);
     }
 
     public Mono<Health> getReviewHealth() {
-        return getHealth(reviewServiceUrl);
+        return getHealth(reviewWebClient, reviewServiceUrl);
     }
 
-    private Mono<Health> getHealth(String url) {
+    private Mono<Health> getHealth(WebClient webClient, String url) {
         url += "/actuator/health";
         LOG.debug("Will call the Health API on URL: {}", url);
         return webClient.get().uri(url).retrieve().bodyToMono(String.class)
@@ -4,62 +4,120 @@ import com.sandcastle.api.composite.product.*;
 import com.sandcastle.api.core.product.Product;
 import com.sandcastle.api.core.recommendation.Recommendation;
 import com.sandcastle.api.core.review.Review;
+import com.sandcastle.api.exceptions.InvalidInputException;
 import com.sandcastle.api.exceptions.NotFoundException;
 import com.sandcastle.common.http.ServiceUtil;
+import com.sandcastle.services.product.composite.readmodel.ProductAggregateReadModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import static com.sandcastle.common.http.ConditionalRequests.checkNotModified;
 import static java.util.logging.Level.FINE;
 
 @RestController
 public class ProductCompositeServiceImpl implements ProductCompositeService {
     private static final Logger LOG = LoggerFactory.getLogger(ProductCompositeServiceImpl.class);
 
+    private static final Set<String> AGGREGATE_FIELDS =
+            Set.of("productId", "name", "weight", "recommendations", "reviews", "serviceAddresses");
+
     private final ProductCompositeIntegration integration;
     private final ServiceUtil serviceUtil;
 
+    private final ProductAggregateCache aggregateCache;
+
+    private final CompositeMetrics metrics;
+
+    // Only available with the read_model profile
+    private final ProductAggregateReadModel readModel;
+
+    private final int pageDefaultLimit;
+    private final int pageMaxLimit;
+
+    private final int batchMaxSize;
+    private final int batchChunkSize;
+    private final int batchConcurrency;
+
     @Autowired
-    public ProductCompositeServiceImpl(ProductCompositeIntegration productCompositeIntegration, ServiceUtil serviceUtil) {
+    public ProductCompositeServiceImpl(
+            ProductCompositeIntegration productCompositeIntegration,
+            ServiceUtil serviceUtil,
+            ProductAggregateCache aggregateCache,
+            CompositeMetrics metrics,
+            ObjectProvider<ProductAggregateReadModel> readModel,
+            @Value("${app.page.defaultLimit:20}") int pageDefaultLimit,
+            @Value("${app.page.maxLimit:500}") int pageMaxLimit,
+            @Value("${app.batch.maxSize:200}") int batchMaxSize,
+            @Value("${app.batch.chunkSize:50}") int batchChunkSize,
+            @Value("${app.batch.concurrency:4}") int batchConcurrency) {
         this.integration = productCompositeIntegration;
         this.serviceUtil = serviceUtil;
+        this.aggregateCache = aggregateCache;
+        this.metrics = metrics;
+        this.readModel = readModel.getIfAvailable();
+        this.pageDefaultLimit = pageDefaultLimit;
+        this.pageMaxLimit = pageMaxLimit;
+        this.batchMaxSize = batchMaxSize;
+        this.batchChunkSize = batchChunkSize;
+        this.batchConcurrency = batchConcurrency;
     }
 
     @Override
     public Mono<Void> createProduct(ProductAggregate body) {
+        return Mono.defer(() -> internalCreateProduct(body))
+                .transform(metrics.timedRequest("createProduct", "202"));
+    }
+
+    private Mono<Void> internalCreateProduct(ProductAggregate body) {
         try {
 
             List<Mono> monoList = new ArrayList<>();
 
-            LOG.debug("createCompositeProduct: creates a new composite entity for productId: {}", body.getProductId());
+            // Missing values are sent as 0, the product service rejects an invalid productId
+            int productId = (body.getProductId() == null) ? 0 : body.getProductId();
+            int weight = (body.getWeight() == null) ? 0 : body.getWeight();
+
+            LOG.debug("createCompositeProduct: creates a new composite entity for productId: {}", productId);
 
-            Product product = new Product(body.getProductId(), body.getName(), body.getWeight(), null);
+            Product product = new Product(productId, body.getName(), weight, null);
             monoList.add(integration.createProduct(product));
 
-            if (body.getRecommendations() != null) {
-                body.getRecommendations().forEach(r -> {
-                    Recommendation recommendation = new Recommendation(body.getProductId(), r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent(), null);
-                    monoList.add(integration.createRecommendation(recommendation));
-                });
+            // One batch event for all recommendations and one for all reviews, instead of one event each
+            if (body.getRecommendations() != null && !body.getRecommendations().isEmpty()) {
+                List<Recommendation> recommendations = body.getRecommendations().stream()
+                        .map(r -> new Recommendation(productId, r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent(), null))
+                        .collect(Collectors.toList());
+                monoList.add(integration.createRecommendations(productId, recommendations).collectList());
             }
 
-            if (body.getReviews() != null) {
-                body.getReviews().forEach(r -> {
-                    Review review = new Review(body.getProductId(), r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent(), null);
-                    monoList.add(integration.createReview(review));
-                });
+            if (body.getReviews() != null && !body.getReviews().isEmpty()) {
+                List<Review> reviews = body.getReviews().stream()
+                        .map(r -> new Review(productId, r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent(), null))
+                        .collect(Collectors.toList());
+                monoList.add(integration.createReviews(productId, reviews).collectList());
             }
 
-            LOG.debug("createCompositeProduct: composite entities created for productId: {}", body.getProductId());
+            LOG.debug("createCompositeProduct: composite entities created for productId: {}", productId);
 
             return Mono.zip(r -> "", monoList.toArray(new Mono[0]))
                     .doOnError(ex -> LOG.warn("createCompositeProduct failed: {}", ex.toString()))
+                    .doFinally(signal -> aggregateCache.evict(productId))
                     .then();
 
         } catch (RuntimeException re) {
@@ -69,67 +127,276 @@ public class ProductCompositeServiceImpl implements ProductCompositeService {
     }
 
     @Override
-    public Mono<ProductAggregate> getProduct(int productId) {
-        LOG.info("Will get composite product info for product.id={}", productId);
+    public Mono<ProductAggregate> getProduct(int productId, Integer limit, Integer recommendationsCursor, Integer reviewsCursor, List<String> fields) {
+        return Mono.defer(() -> internalGetProduct(productId, limit, recommendationsCursor, reviewsCursor, fields))
+                .transform(metrics.timedRequest("getProduct", "200"));
+    }
+
+    private Mono<ProductAggregate> internalGetProduct(int productId, Integer limit, Integer recommendationsCursor, Integer reviewsCursor, List<String> fields) {
+
+        Set<String> requestedFields = getRequestedFields(fields);
+        boolean paged = limit != null || recommendationsCursor != null || reviewsCursor != null;
+
+        if (!paged) {
+            if (requestedFields.containsAll(AGGREGATE_FIELDS)) {
+                return getProduct(productId);
+            }
+
+            LOG.info("Will get composite product info for product.id={}, fields={}", productId, requestedFields);
+
+            // A projection is built from the cached or read model aggregate if there is one, and then has its ETag.
+            // Otherwise only the requested parts are fetched from the core services.
+            return checkNotModified(findAggregate(productId)
+                            .switchIfEmpty(Mono.defer(() -> getProductFromCoreServices(productId, requestedFields, false, Integer.MAX_VALUE, 0, 0)))
+                            .map(aggregate -> project(aggregate, requestedFields)),
+                    ProductAggregate::getEtag)
+                    .doOnError(ex ->
+                            LOG.warn("getCompositeProduct failed: {}", ex.toString()))
+                    .log(LOG.getName(), FINE);
+        }
+
+        int pageLimit = (limit == null) ? pageDefaultLimit : limit;
+        int recommendationsFrom = (recommendationsCursor == null) ? 0 : recommendationsCursor;
+        int reviewsFrom = (reviewsCursor == null) ? 0 : reviewsCursor;
+
+        if (pageLimit < 1 || pageLimit > pageMaxLimit) {
+            throw new InvalidInputException("Invalid limit: " + pageLimit + ", max is " + pageMaxLimit);
+        }
+
+        if (recommendationsFrom < 0 || reviewsFrom < 0) {
+            throw new InvalidInputException("Invalid cursor: " + Math.min(recommendationsFrom, reviewsFrom));
+        }
+
+        LOG.info("Will get composite product info for product.id={}, limit={}, fields={}", productId, pageLimit, requestedFields);
+
+        return getProductFromCoreServices(productId, requestedFields, true, pageLimit, recommendationsFrom, reviewsFrom)
+                .map(aggregate -> project(aggregate, requestedFields))
+                .doOnError(ex ->
+                        LOG.warn("getCompositeProduct failed: {}", ex.toString()))
+                .log(LOG.getName(), FINE);
+    }
+
+    private Mono<ProductAggregate> getProductFromCoreServices(int productId, Set<String> requestedFields, boolean paged, int pageLimit,
+                                                              int recommendationsFrom, int reviewsFrom) {
+
+        boolean withRecommendations = requestedFields.contains("recommendations");
+        boolean withReviews = requestedFields.contains("reviews");
+
+        // The product is always fetched, it decides if the aggregate exists at all.
+        // Recommendations and reviews are only fetched if they are requested.
+        // A page asks for one more than the limit to know if there is a next page, without a count query.
+        Mono<List<Recommendation>> recommendations = !withRecommendations ? Mono.just(Collections.emptyList()) : paged
+                ? integration.getRecommendationsPage(productId, recommendationsFrom, pageLimit + 1).collectList()
+                : integration.getRecommendations(productId).collectList();
+
+        Mono<List<Review>> reviews = !withReviews ? Mono.just(Collections.emptyList()) : paged
+                ? integration.getReviewsPage(productId, reviewsFrom, pageLimit + 1).collectList()
+                : integration.getReviews(productId).collectList();
+
         return Mono.zip(
-                        values -> createProductAggregate(
-                                (Product) values[0],
-                                (List<Recommendation>) values[1],
-                                (List<Review>) values[2],
-                                serviceUtil.getServiceAddress()),
-
-                        integration.getProduct(productId),
-                        integration.getRecommendations(productId).collectList(),
-                        integration.getReviews(productId).collectList())
+                values -> createProductAggregatePage(
+                        (Product) values[0],
+                        withRecommendations ? (List<Recommendation>) values[1] : null,
+                        withReviews ? (List<Review>) values[2] : null,
+                        pageLimit),
+
+                integration.getProduct(productId),
+                recommendations,
+                reviews);
+    }
+
+    // The read model is asked for any projection, the core services only for the requested parts
+    private Mono<ProductAggregate> findAggregate(int productId) {
+        return readModel == null
+                ? aggregateCache.getIfPresent(productId)
+                : aggregateCache.get(productId, () -> readModel.findProduct(productId));
+    }
+
+    // The fields that were not requested are null
+    private ProductAggregate project(ProductAggregate aggregate, Set<String> requestedFields) {
+        ProductAggregate projection = new ProductAggregate(
+                requestedFields.contains("productId") ? aggregate.getProductId() : null,
+                requestedFields.contains("name") ? aggregate.getName() : null,
+                requestedFields.contains("weight") ? aggregate.getWeight() : null,
+                requestedFields.contains("recommendations") ? aggregate.getRecommendations() : null,
+                requestedFields.contains("reviews") ? aggregate.getReviews() : null,
+                requestedFields.contains("serviceAddresses") ? aggregate.getServiceAddresses() : null,
+                aggregate.getRecommendationsNextCursor(),
+                aggregate.getReviewsNextCursor());
+        projection.setEtag(aggregate.getEtag());
+        return projection;
+    }
+
+    private Set<String> getRequestedFields(List<String> fields) {
+
+        if (fields == null || fields.isEmpty()) {
+            return AGGREGATE_FIELDS;
+        }
+
+        Set<String> requestedFields = new HashSet<>();
+        fields.forEach(field -> {
+            String name = field.trim();
+            if (!AGGREGATE_FIELDS.contains(name)) {
+                throw new InvalidInputException("Invalid field: " + name + ", valid fields are " + AGGREGATE_FIELDS);
+            }
+            requestedFields.add(name);
+        });
+        return requestedFields;
+    }
+
+    private Mono<ProductAggregate> getProduct(int productId) {
+        LOG.info("Will get composite product info for product.id={}", productId);
+        return checkNotModified(aggregateCache.get(productId, () -> readModel == null
+                        ? getProductFromCoreServices(productId)
+                        : readModel.findProduct(productId).switchIfEmpty(Mono.defer(() -> getProductFromCoreServices(productId)))),
+                ProductAggregate::getEtag)
                 .doOnError(ex ->
                         LOG.warn("getCompositeProduct failed: {}", ex.toString()))
                 .log(LOG.getName(), FINE);
     }
 
+    private Mono<ProductAggregate> getProductFromCoreServices(int productId) {
+        return Mono.zip(
+                values -> createProductAggregateWithETag(
+                        (Product) values[0],
+                        (List<Recommendation>) values[1],
+                        (List<Review>) values[2]),
+
+                integration.getProduct(productId),
+                integration.getRecommendations(productId).collectList(),
+                integration.getReviews(productId).collectList());
+    }
+
+    @Override
+    public Flux<ProductAggregate> getProducts(List<Integer> productIds) {
+
+        if (productIds.size() > batchMaxSize) {
+            throw new InvalidInputException("Too many productIds: " + productIds.size() + ", max is " + batchMaxSize);
+        }
+        productIds.stream()
+                .filter(productId -> productId == null || productId < 1)
+                .findFirst()
+                .ifPresent(productId -> {
+                    throw new InvalidInputException("Invalid productId: " + productId);
+                });
+
+        LOG.info("Will get composite product info for {} products", productIds.size());
+
+        // Split the ids into chunks that are looked up with one bulk call per core service,
+        // fetch the chunks with bounded concurrency, but keep the order of the requested ids
+        return Flux.fromIterable(new LinkedHashSet<>(productIds))
+                .buffer(batchChunkSize)
+                .flatMapSequential(chunk -> Flux.defer(() -> getProductChunk(chunk)), batchConcurrency)
+                .doOnError(ex ->
+                        LOG.warn("getCompositeProducts failed: {}", ex.toString()))
+                .log(LOG.getName(), FINE);
+    }
+
+    @Override
+    public Flux<ProductAggregate> getProductsBatch(List<Integer> productIds) {
+        return getProducts(productIds);
+    }
+
+    @Override
+    public Flux<ProductAggregate> streamProducts(int fromId, int toId) {
+
+        if (fromId < 1 || toId < fromId) {
+            throw new InvalidInputException("Invalid productId range: " + fromId + " - " + toId);
+        }
+
+        LOG.info("Will stream composite product info for product ids {} - {}", fromId, toId);
+
+        // Products are read as a stream and assembled chunk by chunk. At most batchConcurrency
+        // chunks are in flight, so demand from the client limits how far the product stream is read.
+        return integration.streamProducts(fromId, toId)
+                .buffer(batchChunkSize)
+                .flatMapSequential(products -> Flux.defer(() -> getStreamChunk(products)), batchConcurrency, 1)
+                .doOnError(ex ->
+                        LOG.warn("streamCompositeProducts failed: {}", ex.toString()))
+                .log(LOG.getName(), FINE);
+    }
+
     @Override
     public Mono<Void> deleteProduct(int productId) {
+        return Mono.defer(() -> internalDeleteProduct(productId))
+                .transform(metrics.timedRequest("deleteProduct", "202"));
+    }
+
+    private Mono<Void> internalDeleteProduct(int productId) {
         try {
 
             LOG.debug("deleteCompositeProduct: Deletes a product aggregate for productId: {}", productId);
 
-            return Mono.zip(
-                            r -> "",
+            // Mono.when waits for all three events to be confirmed, zip would stop at the first empty Mono
+            return Mono.when(
                             integration.deleteProduct(productId),
                             integration.deleteRecommendations(productId),
                             integration.deleteReviews(productId))
                     .doOnError(ex -> LOG.warn("delete failed: {}", ex.toString()))
-                    .log(LOG.getName(), FINE).then();
+                    .doFinally(signal -> aggregateCache.evict(productId))
+                    .log(LOG.getName(), FINE);
 
         } catch (RuntimeException re) {
             LOG.warn("deleteCompositeProduct failed: {}", re.toString());
             throw re;
         }
     }
-    private ProductAggregate createProductAggregate(Product product, List<Recommendation> recommendations, List<Review> reviews, String serviceAddress) {
+    private Flux<ProductAggregate> getProductChunk(List<Integer> productIds) {
+        return assembleChunk(productIds, integration.getProducts(productIds).collectMap(Product::getProductId));
+    }
 
-        // 1. Setup product info
-        int productId = product.getProductId();
-        String name = product.getName();
-        int weight = product.getWeight();
+    private Flux<ProductAggregate> getStreamChunk(Collection<Product> chunk) {
+        List<Integer> productIds = chunk.stream().map(Product::getProductId).collect(Collectors.toList());
+        return assembleChunk(productIds, Flux.fromIterable(chunk).collectMap(Product::getProductId));
+    }
 
-        // 2. Copy summary recommendation info, if available
-        List<RecommendationSummary> recommendationSummaries = (recommendations == null) ? null :
-                recommendations.stream()
-                        .map(r -> new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent()))
-                        .collect(Collectors.toList());
+    private Flux<ProductAggregate> assembleChunk(List<Integer> productIds, Mono<Map<Integer, Product>> productsById) {
+        return Mono.zip(
+                        productsById,
+                        integration.getRecommendationsForProducts(productIds).collectMultimap(Recommendation::getProductId),
+                        integration.getReviewsForProducts(productIds).collectMultimap(Review::getProductId))
+                .flatMapIterable(values -> {
+                    Map<Integer, Product> products = values.getT1();
+                    Map<Integer, Collection<Recommendation>> recommendations = values.getT2();
+                    Map<Integer, Collection<Review>> reviews = values.getT3();
 
-        // 3. Copy summary review info, if available
-        List<ReviewSummary> reviewSummaries = (reviews == null)  ? null :
-                reviews.stream()
-                        .map(r -> new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent()))
-                        .collect(Collectors.toList());
+                    // Products that don't exist are left out of the result instead of failing the whole batch
+                    return productIds.stream()
+                            .filter(products::containsKey)
+                            .map(productId -> createProductAggregate(
+                                    products.get(productId),
+                                    new ArrayList<>(recommendations.getOrDefault(productId, Collections.emptyList())),
+                                    new ArrayList<>(reviews.getOrDefault(productId, Collections.emptyList())),
+                                    serviceUtil.getServiceAddress()))
+                            .collect(Collectors.toList());
+                });
+    }
+
+    private ProductAggregate createProductAggregatePage(Product product, List<Recommendation> recommendations, List<Review> reviews, int limit) {
+
+        Integer recommendationsNextCursor = null;
+        if (recommendations != null && recommendations.size() > limit) {
+            recommendations = recommendations.subList(0, limit);
+            recommendationsNextCursor = recommendations.get(limit - 1).getRecommendationId();
+        }
 
-        // 4. Create info regarding the involved microservices addresses
-        String productAddress = product.getServiceAddress();
-        String reviewAddress = (reviews != null && reviews.size() > 0) ? reviews.get(0).getServiceAddress() : "";
-        String recommendationAddress = (recommendations != null && recommendations.size() > 0) ? recommendations.get(0).getServiceAddress() : "";
-        ServiceAddresses serviceAddresses = new ServiceAddresses(serviceAddress, productAddress, reviewAddress, recommendationAddress);
+        Integer reviewsNextCursor = null;
+        if (reviews != null && reviews.size() > limit) {
+            reviews = reviews.subList(0, limit);
+            reviewsNextCursor = reviews.get(limit - 1).getReviewId();
+        }
+
+        return ProductAggregates.create(product, recommendations, reviews, serviceUtil.getServiceAddress(),
+                recommendationsNextCursor, reviewsNextCursor);
+    }
 
-        return new ProductAggregate(productId, name, weight, recommendationSummaries, reviewSummaries, serviceAddresses);
+    private ProductAggregate createProductAggregateWithETag(Product product, List<Recommendation> recommendations, List<Review> reviews) {
+        ProductAggregate aggregate = createProductAggregate(product, recommendations, reviews, serviceUtil.getServiceAddress());
+        aggregate.setEtag(ProductAggregates.etag(product.getProductId(), product.getVersion(), recommendations, reviews));
+        return aggregate;
+    }
+
+    private ProductAggregate createProductAggregate(Product product, List<Recommendation> recommendations, List<Review> reviews, String serviceAddress) {
+        return ProductAggregates.create(product, recommendations, reviews, serviceAddress, null, null);
     }
 }
@@ -0,0 +1,59 @@
+package com.sandcastle.services.product.composite.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * De-duplicates concurrent downstream calls.
+ *
+ * Callers that ask for the same (service, productId) while a call for it is in flight
+ * subscribe to that call instead of starting a new one, and get its result replayed.
+ * The entry is removed as soon as the call terminates, so nothing is cached beyond
+ * the lifetime of the call itself.
+ */
+@Component
+public class RequestCoalescer {
+    private static final Logger LOG = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final boolean enabled;
+
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RequestCoalescer(@Value("${app.coalescing.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(String service, int productId, Supplier<Mono<T>> call) {
+
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+
+        String key = service + ":" + productId;
+
+        return Mono.defer(() -> (Mono<T>) inFlight.computeIfAbsent(key, k -> {
+            LOG.trace("No call in flight for {}, starting a new one", k);
+            return call.get()
+                    .doFinally(signal -> inFlight.remove(k))
+                    .cache();
+        }));
+    }
+
+    public <T> Flux<T> coalesceMany(String service, int productId, Supplier<Flux<T>> call) {
+        return this.<List<T>>coalesce(service, productId, () -> call.get().collectList())
+                .flatMapIterable(Function.identity());
+    }
+}
@@ -0,0 +1,120 @@
+package com.sandcastle.services.product.composite.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Sends a second, hedged request when a downstream call has not answered within
+ * a percentile of the latencies observed for that downstream, and keeps whichever
+ * request signals first. The other request is cancelled.
+ *
+ * The hedged request can be sent by another client than the first one, e.g. one with
+ * its own connection pool, so that it doesn't wait for a connection behind the slow
+ * requests it hedges.
+ *
+ * Only use it for idempotent calls.
+ */
+@Component
+public class RequestHedger {
+    private static final Logger LOG = LoggerFactory.getLogger(RequestHedger.class);
+
+    private final boolean enabled;
+    private final double percentile;
+    private final Duration minDelay;
+    private final Duration defaultDelay;
+    private final long minSamples;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> latencies = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RequestHedger(
+            @Value("${app.hedging.enabled:false}") boolean enabled,
+            @Value("${app.hedging.percentile:0.95}") double percentile,
+            @Value("${app.hedging.minDelay:10ms}") Duration minDelay,
+            @Value("${app.hedging.defaultDelay:100ms}") Duration defaultDelay,
+            @Value("${app.hedging.minSamples:100}") long minSamples,
+            MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.defaultDelay = defaultDelay;
+        this.minSamples = minSamples;
+        this.meterRegistry = meterRegistry;
+
+        LOG.info("Creates a request hedger, enabled = {}, percentile = {}", enabled, percentile);
+    }
+
+    public <T> Mono<T> hedge(String service, Supplier<Mono<T>> call) {
+        return hedge(service, call, call);
+    }
+
+    public <T> Mono<T> hedge(String service, Supplier<Mono<T>> call, Supplier<Mono<T>> hedgedCall) {
+
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+
+        Timer timer = latencies.computeIfAbsent(service, this::createTimer);
+
+        return Mono.defer(() -> {
+            Duration delay = hedgeDelay(timer);
+
+            // Only the first request is timed, a hedged request is only sent, and only answers first, when the first one is slow
+            Mono<T> primary = timed(call, timer);
+            Mono<T> hedged = Mono.delay(delay)
+                    .doOnNext(tick -> LOG.debug("No response from {} within {} ms, sends a hedged request", service, delay.toMillis()))
+                    .then(Mono.defer(hedgedCall));
+
+            return Mono.firstWithSignal(primary, hedged);
+        });
+    }
+
+    private <T> Mono<T> timed(Supplier<Mono<T>> call, Timer timer) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.get()
+                    .doOnSuccess(result -> timer.record(System.nanoTime() - start, NANOSECONDS))
+                    // Cancelled, e.g. because the hedged request answered first, it would have taken at least this long
+                    .doOnCancel(() -> timer.record(System.nanoTime() - start, NANOSECONDS));
+        });
+    }
+
+    private Duration hedgeDelay(Timer timer) {
+
+        if (timer.count() < minSamples) {
+            return defaultDelay;
+        }
+
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                Duration observed = Duration.ofNanos((long) value.value(NANOSECONDS));
+                return observed.compareTo(minDelay) > 0 ? observed : minDelay;
+            }
+        }
+        return defaultDelay;
+    }
+
+    private Timer createTimer(String service) {
+        return Timer.builder("composite.hedging.latency")
+                .description("Latency of the first request of downstream calls, used to decide when to hedge")
+                .tag("downstream", service)
+                .publishPercentiles(percentile)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,162 @@
+package com.sandcastle.services.product.composite.services;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * One WebClient per core service, each with its own named Reactor Netty
+ * connection pool, so a slow service can only exhaust its own connections.
+ *
+ * Pool settings are read from app.&lt;service&gt;.pool.*. The pools publish their
+ * gauges (reactor.netty.connection.provider.*) to Micrometer.
+ *
+ * Hedged requests, see RequestHedger, are sent by a second WebClient per service with
+ * the hedging pool, app.hedging.pool.*. A hedged request then neither waits for a
+ * connection behind the slow requests it hedges nor shares their connections. It
+ * still goes to the same URL, so it reaches another instance of the core service only
+ * if the host name is load balanced per connection, e.g. a Kubernetes or Compose service.
+ *
+ * With app.wireFormat set to smile, the clients ask the core services for the binary
+ * Smile encoding of JSON, with plain JSON as a fallback for services that don't offer it.
+ */
+@Configuration
+public class WebClientConfig {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WebClientConfig.class);
+
+  private static final String SMILE_OR_JSON = "application/x-jackson-smile, application/json;q=0.9";
+
+  private final Environment env;
+
+  @Autowired
+  public WebClientConfig(Environment env) {
+    this.env = env;
+  }
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider productConnectionProvider() {
+    return createConnectionProvider("product");
+  }
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider recommendationConnectionProvider() {
+    return createConnectionProvider("recommendation");
+  }
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider reviewConnectionProvider() {
+    return createConnectionProvider("review");
+  }
+
+  // Reactor Netty keeps a pool per remote address, so the services share the provider but not the connections
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider hedgeConnectionProvider() {
+    return createConnectionProvider("hedging");
+  }
+
+  @Bean
+  public WebClient productWebClient(
+    WebClient.Builder builder,
+    @Qualifier("productConnectionProvider") ConnectionProvider connectionProvider) {
+
+    return createWebClient("product", builder, connectionProvider);
+  }
+
+  @Bean
+  public WebClient recommendationWebClient(
+    WebClient.Builder builder,
+    @Qualifier("recommendationConnectionProvider") ConnectionProvider connectionProvider) {
+
+    return createWebClient("recommendation", builder, connectionProvider);
+  }
+
+  @Bean
+  public WebClient reviewWebClient(
+    WebClient.Builder builder,
+    @Qualifier("reviewConnectionProvider") ConnectionProvider connectionProvider) {
+
+    return createWebClient("review", builder, connectionProvider);
+  }
+
+  @Bean
+  public WebClient productHedgeWebClient(
+    WebClient.Builder builder,
+    @Qualifier("hedgeConnectionProvider") ConnectionProvider connectionProvider) {
+
+    return createWebClient("product", builder, connectionProvider);
+  }
+
+  @Bean
+  public WebClient recommendationHedgeWebClient(
+    WebClient.Builder builder,
+    @Qualifier("hedgeConnectionProvider") ConnectionProvider connectionProvider) {
+
+    return createWebClient("recommendation", builder, connectionProvider);
+  }
+
+  @Bean
+  public WebClient reviewHedgeWebClient(
+    WebClient.Builder builder,
+    @Qualifier("hedgeConnectionProvider") ConnectionProvider connectionProvider) {
+
+    return createWebClient("review", builder, connectionProvider);
+  }
+
+  private ConnectionProvider createConnectionProvider(String service) {
+
+    String prefix = "app." + service + ".pool.";
+    int maxConnections = env.getProperty(prefix + "maxConnections", Integer.class, 100);
+    int pendingAcquireMaxCount = env.getProperty(prefix + "pendingAcquireMaxCount", Integer.class, 200);
+    Duration pendingAcquireTimeout = env.getProperty(prefix + "pendingAcquireTimeout", Duration.class, Duration.ofSeconds(2));
+    Duration maxIdleTime = env.getProperty(prefix + "maxIdleTime", Duration.class, Duration.ofSeconds(30));
+    Duration maxLifeTime = env.getProperty(prefix + "maxLifeTime", Duration.class, Duration.ofMinutes(5));
+    Duration evictInBackground = env.getProperty(prefix + "evictInBackground", Duration.class, Duration.ofSeconds(30));
+
+    LOG.info("Creates a connection pool for {} with maxConnections = {}, pendingAcquireMaxCount = {}",
+      service, maxConnections, pendingAcquireMaxCount);
+
+    return ConnectionProvider.builder(service)
+      .maxConnections(maxConnections)
+      .pendingAcquireMaxCount(pendingAcquireMaxCount)
+      .pendingAcquireTimeout(pendingAcquireTimeout)
+      .maxIdleTime(maxIdleTime)
+      .maxLifeTime(maxLifeTime)
+      .evictInBackground(evictInBackground)
+      .metrics(true)
+      .build();
+  }
+
+  private WebClient createWebClient(String service, WebClient.Builder builder, ConnectionProvider connectionProvider) {
+
+    boolean keepAlive = env.getProperty("app." + service + ".pool.keepAlive", Boolean.class, true);
+
+    HttpClient httpClient = HttpClient.create(connectionProvider)
+      .keepAlive(keepAlive)
+      .option(ChannelOption.SO_KEEPALIVE, keepAlive);
+
+    String wireFormat = env.getProperty("app.wireFormat", "smile");
+
+    // Clone the Boot configured builder to keep its codecs and customizers
+    WebClient.Builder clientBuilder = builder.clone()
+      .clientConnector(new ReactorClientHttpConnector(httpClient))
+      .filter(CompositeMetrics.responseStatusFilter());
+
+    if ("smile".equals(wireFormat)) {
+      clientBuilder.defaultHeader(HttpHeaders.ACCEPT, SMILE_OR_JSON);
+    }
+    return clientBuilder.build();
+  }
+}
@@ -0,0 +1,134 @@
+package com.sandcastle.services.product.composite;
+
+import com.sandcastle.api.exceptions.NotFoundException;
+import com.sandcastle.services.product.composite.services.CompositeMetrics;
+import com.sandcastle.services.product.composite.services.RequestHedger;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.web.filter.reactive.ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class CompositeMetricsTests {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final CompositeMetrics metrics = new CompositeMetrics(registry);
+
+  @Test
+  void downstreamCallsAreTaggedWithOutcomeAndStatus() {
+
+    StepVerifier.create(response(200).thenMany(Flux.just(1, 2)).transform(metrics.timedCallMany("review", "getReviews")))
+      .expectNext(1, 2)
+      .verifyComplete();
+
+    StepVerifier.create(Flux.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null))
+        .transform(metrics.timedCallMany("review", "getReviews")))
+      .verifyError();
+
+    StepVerifier.create(Mono.never().timeout(Duration.ofMillis(10))
+        .transform(metrics.timedCall("product", "getProduct")))
+      .verifyError();
+
+    assertEquals(1, downstreamTimer("review", "SUCCESS", "200").count());
+    assertEquals(1, downstreamTimer("review", "SERVER_ERROR", "503").count());
+    assertEquals(1, downstreamTimer("product", "TIMEOUT", "NONE").count());
+  }
+
+  @Test
+  void successfulCallsAreTaggedWithTheStatusOfTheResponse() {
+
+    StepVerifier.create(response(304).thenReturn(1).transform(metrics.timedCall("product", "getProduct")))
+      .expectNext(1)
+      .verifyComplete();
+
+    assertEquals(1, downstreamTimer("product", "SUCCESS", "304").count());
+  }
+
+  @Test
+  void hedgedCallsAreTimedOnce() {
+
+    RequestHedger hedger = new RequestHedger(true, 0.95, Duration.ofMillis(1), Duration.ofMillis(10), 100, registry);
+
+    StepVerifier.create(hedger.hedge("product", () -> response(200).delayElement(Duration.ofMillis(50)).thenReturn(1))
+        .transform(metrics.timedCall("product", "getProduct")))
+      .expectNext(1)
+      .verifyComplete();
+
+    // Not the cancelled attempt
+    assertEquals(1, registry.find("composite.downstream.requests").timers().stream().mapToLong(Timer::count).sum());
+    assertEquals(1, downstreamTimer("product", "SUCCESS", "200").count());
+  }
+
+  @Test
+  void notModifiedResponsesAreTaggedWith304() {
+
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/product-composite/1"));
+    exchange.getResponse().setStatusCode(HttpStatus.NOT_MODIFIED);
+
+    StepVerifier.create(Mono.just(1)
+        .transform(metrics.timedRequest("getProduct", "200"))
+        .contextWrite(Context.of(EXCHANGE_CONTEXT_ATTRIBUTE, exchange)))
+      .expectNext(1)
+      .verifyComplete();
+
+    Timer timer = registry.find("composite.requests")
+      .tags("operation", "getProduct", "outcome", "SUCCESS", "status", "304")
+      .timer();
+    assertNotNull(timer);
+    assertEquals(1, timer.count());
+  }
+
+  @Test
+  void requestsAreTaggedWithTheResponseStatus() {
+
+    StepVerifier.create(Mono.error(new NotFoundException("not found"))
+        .transform(metrics.timedRequest("getProduct", "200")))
+      .verifyError();
+
+    Timer timer = registry.find("composite.requests")
+      .tags("operation", "getProduct", "outcome", "CLIENT_ERROR", "status", "404")
+      .timer();
+    assertNotNull(timer);
+    assertEquals(1, timer.count());
+  }
+
+  @Test
+  void partialResponsesAreCounted() {
+
+    metrics.partialResponse("review", new RuntimeException());
+    metrics.partialResponse("review", new RuntimeException());
+
+    assertEquals(2.0, registry.get("composite.partial.responses").tag("downstream", "review").counter().count());
+  }
+
+  // A WebClient exchange with the status filter
+  private Mono<ClientResponse> response(int status) {
+    return CompositeMetrics.responseStatusFilter().filter(
+      ClientRequest.create(HttpMethod.GET, URI.create("http://core")).build(),
+      request -> Mono.just(ClientResponse.create(HttpStatus.valueOf(status)).build()));
+  }
+
+  private Timer downstreamTimer(String downstream, String outcome, String status) {
+    Timer timer = registry.find("composite.downstream.requests")
+      .tags("downstream", downstream, "outcome", outcome, "status", status)
+      .timer();
+    assertNotNull(timer);
+    return timer;
+  }
+}
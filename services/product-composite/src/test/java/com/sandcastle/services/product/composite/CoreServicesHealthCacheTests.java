@@ -0,0 +1,59 @@
+package com.sandcastle.services.product.composite;
+
+import com.sandcastle.services.product.composite.services.CoreServicesHealthCache;
+import com.sandcastle.services.product.composite.services.ProductCompositeIntegration;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoreServicesHealthCacheTests {
+
+  private final ProductCompositeIntegration integration = mock(ProductCompositeIntegration.class);
+
+  @Test
+  void healthIsServedFromTheCache() {
+
+    AtomicInteger calls = new AtomicInteger();
+    when(integration.getProductHealth()).thenReturn(Mono.fromCallable(() -> {
+      calls.incrementAndGet();
+      return Health.up().build();
+    }));
+    when(integration.getRecommendationHealth()).thenReturn(Mono.just(Health.up().build()));
+    when(integration.getReviewHealth()).thenReturn(Mono.error(new RuntimeException("connection refused")));
+
+    CoreServicesHealthCache cache = new CoreServicesHealthCache(integration, Duration.ofHours(1), Duration.ofHours(1), Duration.ofSeconds(1));
+    assertEquals(Status.UNKNOWN, cache.getHealth("product").getStatus());
+
+    cache.refresh().block();
+    for (int i = 0; i < 100; i++) {
+      assertEquals(Status.UP, cache.getHealth("product").getStatus());
+    }
+
+    assertEquals(1, calls.get());
+    assertEquals(Status.UP, cache.getHealth("recommendation").getStatus());
+    assertEquals(Status.DOWN, cache.getHealth("review").getStatus());
+  }
+
+  @Test
+  void oldHealthIsUnknown() throws InterruptedException {
+
+    when(integration.getProductHealth()).thenReturn(Mono.just(Health.up().build()));
+    when(integration.getRecommendationHealth()).thenReturn(Mono.just(Health.up().build()));
+    when(integration.getReviewHealth()).thenReturn(Mono.just(Health.up().build()));
+
+    CoreServicesHealthCache cache = new CoreServicesHealthCache(integration, Duration.ofHours(1), Duration.ofMillis(10), Duration.ofSeconds(1));
+
+    cache.refresh().block();
+    Thread.sleep(50);
+
+    assertEquals(Status.UNKNOWN, cache.getHealth("product").getStatus());
+  }
+}
@@ -0,0 +1,119 @@
+package com.sandcastle.services.product.composite;
+
+import com.sandcastle.api.event.Event;
+import com.sandcastle.services.product.composite.services.EventPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceContext;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.propagation.Propagator;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static com.sandcastle.api.event.Event.Type.DELETE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// The test binder does not confirm anything, the tests play the part of the Kafka binder
+@SpringBootTest(
+  properties = {
+    "spring.cloud.stream.bindings.aggregateCacheInvalidator-in-0.destination=aggregate-cache-events",
+    "spring.cloud.stream.defaultBinder=kafka",
+    "app.publish.confirms=true",
+    "app.publish.confirmTimeout=1s"})
+@Import({TestChannelBinderConfiguration.class})
+class EventPublisherTests {
+
+  @Autowired
+  private EventPublisher publisher;
+
+  @Autowired
+  private OutputDestination target;
+
+  @Autowired
+  @Qualifier(EventPublisher.KAFKA_SEND_RESULTS)
+  private MessageChannel kafkaSendResults;
+
+  @Autowired
+  @Qualifier("errorChannel")
+  private MessageChannel errorChannel;
+
+  @Autowired
+  private Tracer tracer;
+
+  @Autowired
+  private Propagator propagator;
+
+  @BeforeEach
+  void setUp() {
+    while (target.receive(0, "products") != null) {
+      // purge
+    }
+  }
+
+  @Test
+  void publishCompletesOnSendResult() {
+
+    StepVerifier.create(publisher.publish("products-out-0", new Event<>(DELETE, 1, null)))
+      .then(() -> kafkaSendResults.send(sentMessage()))
+      .expectComplete()
+      .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void publishFailsOnSendFailure() {
+
+    StepVerifier.create(publisher.publish("products-out-0", new Event<>(DELETE, 1, null)))
+      .then(() -> errorChannel.send(new ErrorMessage(new MessagingException(sentMessage(), "send failed"))))
+      .expectErrorMessage("send failed")
+      .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void publishFailsWithoutConfirm() {
+
+    StepVerifier.create(publisher.publish("products-out-0", new Event<>(DELETE, 1, null)))
+      .expectError(TimeoutException.class)
+      .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void publishSendsTheTraceContext() {
+
+    Span span = tracer.nextSpan().name("createProduct").start();
+    try (Tracer.SpanInScope ws = tracer.withSpan(span)) {
+
+      StepVerifier.create(publisher.publish("products-out-0", new Event<>(DELETE, 1, null)))
+        .then(() -> {
+          Message<?> message = sentMessage();
+          TraceContext sent = propagator.extract(message, (m, key) -> m.getHeaders().get(key, String.class)).start().context();
+          assertEquals(span.context().traceId(), sent.traceId());
+          kafkaSendResults.send(message);
+        })
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+
+    } finally {
+      span.end();
+    }
+  }
+
+  private Message<?> sentMessage() {
+    Message<byte[]> message = target.receive(1000, "products");
+    assertNotNull(message);
+    return message;
+  }
+}
@@ -37,9 +37,14 @@ import static org.springframework.boot.test.context.SpringBootTest.WebEnvironmen
 import static org.springframework.http.HttpStatus.ACCEPTED;
 import static reactor.core.publisher.Mono.just;
 
+// The test binder hands messages sent to a destination directly to consumers of the same destination,
+// so the cache invalidator listens elsewhere to leave the published events for the OutputDestination
 @SpringBootTest(
   webEnvironment = RANDOM_PORT,
-  properties = {"spring.main.allow-bean-definition-overriding=true"})
+  properties = {
+    "spring.main.allow-bean-definition-overriding=true",
+    "spring.cloud.stream.bindings.aggregateCacheInvalidator-in-0.destination=aggregate-cache-events",
+    "app.publish.confirms=false"})
 @Import({TestChannelBinderConfiguration.class})
 class MessagingTests {
 
@@ -99,24 +104,46 @@ class MessagingTests {
       new Event(CREATE, composite.getProductId(), new Product(composite.getProductId(), composite.getName(), composite.getWeight(), null));
     assertThat(productMessages.get(0), is(sameEventExceptCreatedAt(expectedProductEvent)));
 
-    // Assert one create recommendation event queued up
+    // Assert one create recommendation batch event queued up
     assertEquals(1, recommendationMessages.size());
 
     RecommendationSummary rec = composite.getRecommendations().get(0);
-    Event<Integer, Product> expectedRecommendationEvent =
-      new Event(CREATE, composite.getProductId(),
-        new Recommendation(composite.getProductId(), rec.getRecommendationId(), rec.getAuthor(), rec.getRate(), rec.getContent(), null));
+    Event<Integer, Recommendation> expectedRecommendationEvent =
+      Event.batch(composite.getProductId(), singletonList(
+        new Recommendation(composite.getProductId(), rec.getRecommendationId(), rec.getAuthor(), rec.getRate(), rec.getContent(), null)));
     assertThat(recommendationMessages.get(0), is(sameEventExceptCreatedAt(expectedRecommendationEvent)));
 
-    // Assert one create review event queued up
+    // Assert one create review batch event queued up
     assertEquals(1, reviewMessages.size());
 
     ReviewSummary rev = composite.getReviews().get(0);
-    Event<Integer, Product> expectedReviewEvent =
-      new Event(CREATE, composite.getProductId(), new Review(composite.getProductId(), rev.getReviewId(), rev.getAuthor(), rev.getSubject(), rev.getContent(), null));
+    Event<Integer, Review> expectedReviewEvent =
+      Event.batch(composite.getProductId(), singletonList(
+        new Review(composite.getProductId(), rev.getReviewId(), rev.getAuthor(), rev.getSubject(), rev.getContent(), null)));
     assertThat(reviewMessages.get(0), is(sameEventExceptCreatedAt(expectedReviewEvent)));
   }
 
+  @Test
+  void createCompositeProductWithManyReviews() {
+
+    List<ReviewSummary> reviews = new ArrayList<>();
+    for (int reviewId = 1; reviewId <= 300; reviewId++) {
+      reviews.add(new ReviewSummary(reviewId, "a", "s", "c"));
+    }
+    ProductAggregate composite = new ProductAggregate(1, "name", 1, null, reviews, null);
+    postAndVerifyProduct(composite, ACCEPTED);
+
+    final List<String> reviewMessages = getMessages("reviews");
+
+    // Assert that all reviews are sent in one batch event
+    assertEquals(1, reviewMessages.size());
+
+    List<Review> expectedReviews = new ArrayList<>();
+    reviews.forEach(rev -> expectedReviews.add(
+      new Review(composite.getProductId(), rev.getReviewId(), rev.getAuthor(), rev.getSubject(), rev.getContent(), null)));
+    assertThat(reviewMessages.get(0), is(sameEventExceptCreatedAt(Event.batch(composite.getProductId(), expectedReviews))));
+  }
+
   @Test
   void deleteCompositeProduct() {
     deleteAndVerifyProduct(1, ACCEPTED);
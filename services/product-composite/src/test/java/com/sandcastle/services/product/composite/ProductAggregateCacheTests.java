@@ -0,0 +1,86 @@
+package com.sandcastle.services.product.composite;
+
+import com.sandcastle.api.composite.product.ProductAggregate;
+import com.sandcastle.services.product.composite.services.ProductAggregateCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductAggregateCacheTests {
+
+  private final ProductAggregateCache cache =
+    new ProductAggregateCache(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void cachesLoadedAggregates() {
+
+    StepVerifier.create(cache.get(1, this::load)).expectNextCount(1).verifyComplete();
+    StepVerifier.create(cache.get(1, this::load)).expectNextCount(1).verifyComplete();
+
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void reloadsEvictedAggregates() {
+
+    StepVerifier.create(cache.get(1, this::load)).expectNextCount(1).verifyComplete();
+    cache.evict(1);
+    StepVerifier.create(cache.get(1, this::load)).expectNextCount(1).verifyComplete();
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void doesNotCacheAggregatesLoadedBeforeAnEviction() {
+
+    Sinks.One<ProductAggregate> slowLoad = Sinks.one();
+
+    StepVerifier.create(cache.get(1, slowLoad::asMono))
+      .then(() -> {
+        cache.evict(1);
+        slowLoad.tryEmitValue(new ProductAggregate(1, "stale", 1, null, null, null));
+      })
+      .expectNextCount(1)
+      .verifyComplete();
+
+    StepVerifier.create(cache.get(1, this::load))
+      .expectNextMatches(aggregate -> aggregate.getName().equals("name"))
+      .verifyComplete();
+
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void evictionsOfOtherProductsDoNotPreventCaching() {
+
+    Sinks.One<ProductAggregate> slowLoad = Sinks.one();
+
+    StepVerifier.create(cache.get(1, slowLoad::asMono))
+      .then(() -> {
+        cache.evict(2);
+        slowLoad.tryEmitValue(new ProductAggregate(1, "name", 1, null, null, null));
+      })
+      .expectNextCount(1)
+      .verifyComplete();
+
+    StepVerifier.create(cache.get(1, this::load)).expectNextCount(1).verifyComplete();
+
+    assertEquals(0, loads.get());
+  }
+
+  private Mono<ProductAggregate> load() {
+    return Mono.fromCallable(() -> {
+      loads.incrementAndGet();
+      return new ProductAggregate(1, "name", 1, null, null, null);
+    });
+  }
+}
@@ -0,0 +1,97 @@
+package com.sandcastle.services.product.composite;
+
+import com.sandcastle.api.composite.product.ProductAggregate;
+import com.sandcastle.api.composite.product.RecommendationSummary;
+import com.sandcastle.api.composite.product.ReviewSummary;
+import com.sandcastle.api.core.recommendation.Recommendation;
+import com.sandcastle.api.core.review.Review;
+import com.sandcastle.services.product.composite.readmodel.ProductAggregateDocument;
+import com.sandcastle.services.product.composite.services.ProductAggregates;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductAggregateDocumentTests {
+
+  @Test
+  void documentWithoutProductIsIncomplete() {
+
+    ProductAggregateDocument document = new ProductAggregateDocument();
+    document.setProductId(1);
+    document.getRecommendations().put("1", new Recommendation(1, 1, "a", 1, "c", null));
+
+    assertFalse(document.isComplete());
+  }
+
+  @Test
+  void aggregateRoundTrip() {
+
+    ProductAggregate aggregate = new ProductAggregate(1, "name", 2,
+      List.of(new RecommendationSummary(2, "a", 2, "c"), new RecommendationSummary(1, "a", 1, "c")),
+      List.of(new ReviewSummary(1, "a", "s", "c")),
+      null);
+
+    ProductAggregateDocument document = ProductAggregateDocument.fromAggregate(aggregate);
+    assertTrue(document.isComplete());
+
+    ProductAggregate result = document.toAggregate("composite");
+
+    assertEquals(1, result.getProductId());
+    assertEquals("name", result.getName());
+    assertEquals(2, result.getWeight());
+    assertEquals(2, result.getRecommendations().size());
+    assertEquals(1, result.getRecommendations().get(0).getRecommendationId());
+    assertEquals(2, result.getRecommendations().get(1).getRecommendationId());
+    assertEquals(1, result.getReviews().size());
+    assertEquals("composite", result.getServiceAddresses().getCmp());
+    assertEquals("composite", result.getServiceAddresses().getRec());
+  }
+
+  @Test
+  void aggregateHasTheETagOfTheCoreServiceParts() {
+
+    ProductAggregateDocument document = new ProductAggregateDocument(1, "name", 2);
+    document.setProductVersion(0);
+    document.getRecommendations().put("2", recommendation(2));
+    document.getRecommendations().put("1", recommendation(1));
+    document.getReviews().put("1", review(1));
+
+    // The core services return the parts in any order
+    String coreServicesETag = ProductAggregates.etag(1, 0, List.of(recommendation(1), recommendation(2)), List.of(review(1)));
+
+    assertEquals(coreServicesETag, document.toAggregate("composite").getEtag());
+
+    document.getReviews().remove("1");
+    assertNotEquals(coreServicesETag, document.toAggregate("composite").getEtag());
+  }
+
+  @Test
+  void reloadedAggregateHasTheVersionsOfNewParts() {
+
+    ProductAggregate aggregate = new ProductAggregate(1, "name", 2,
+      List.of(new RecommendationSummary(1, "a", 1, "c")),
+      List.of(new ReviewSummary(1, "a", "s", "c")),
+      null);
+
+    String coreServicesETag = ProductAggregates.etag(1, 0, List.of(recommendation(1)), List.of(review(1)));
+
+    assertEquals(coreServicesETag, ProductAggregateDocument.fromAggregate(aggregate).toAggregate("composite").getEtag());
+  }
+
+  private Recommendation recommendation(int recommendationId) {
+    Recommendation recommendation = new Recommendation(1, recommendationId, "a", 1, "c", null);
+    recommendation.setVersion(0);
+    return recommendation;
+  }
+
+  private Review review(int reviewId) {
+    Review review = new Review(1, reviewId, "a", "s", "c", null);
+    review.setVersion(0);
+    return review;
+  }
+}
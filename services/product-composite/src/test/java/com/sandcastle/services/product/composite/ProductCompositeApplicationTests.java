@@ -9,6 +9,8 @@ import com.sandcastle.api.core.review.Review;
 import com.sandcastle.api.exceptions.InvalidInputException;
 import com.sandcastle.api.exceptions.NotFoundException;
 import com.sandcastle.services.product.composite.services.ProductCompositeIntegration;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,14 +18,25 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 import static reactor.core.publisher.Mono.just;
 
 @SpringBootTest(webEnvironment = RANDOM_PORT)
@@ -31,6 +44,7 @@ class ProductCompositeApplicationTests {
 	private static final int PRODUCT_ID_OK = 1;
 	private static final int PRODUCT_ID_NOT_FOUND = 2;
 	private static final int PRODUCT_ID_INVALID = 3;
+	private static final int PRODUCT_ID_CIRCUIT_OPEN = 4;
 
 	@Autowired
 	private WebTestClient client;
@@ -50,9 +64,39 @@ class ProductCompositeApplicationTests {
 		when(compositeIntegration.getReviews(PRODUCT_ID_OK))
 				.thenReturn(Flux.fromIterable(singletonList(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock address"))));
 
+		when(compositeIntegration.getRecommendationsPage(PRODUCT_ID_OK, 0, 2))
+				.thenReturn(Flux.just(
+						new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "mock address"),
+						new Recommendation(PRODUCT_ID_OK, 2, "author", 1, "content", "mock address")));
+
+		when(compositeIntegration.getReviewsPage(PRODUCT_ID_OK, 0, 2))
+				.thenReturn(Flux.just(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock address")));
+
 		when(compositeIntegration.getProduct(PRODUCT_ID_NOT_FOUND)).thenThrow(new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND));
 
 		when(compositeIntegration.getProduct(PRODUCT_ID_INVALID)).thenThrow(new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID));
+
+		when(compositeIntegration.getProduct(PRODUCT_ID_CIRCUIT_OPEN))
+				.thenReturn(Mono.error(CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("product"))));
+		when(compositeIntegration.getRecommendations(PRODUCT_ID_CIRCUIT_OPEN)).thenReturn(Flux.empty());
+		when(compositeIntegration.getReviews(PRODUCT_ID_CIRCUIT_OPEN)).thenReturn(Flux.empty());
+
+		when(compositeIntegration.getProducts(anyList()))
+				.thenReturn(Flux.just(new Product(PRODUCT_ID_OK, "name", 1, "mock-address")));
+
+		when(compositeIntegration.getProducts(argThat(ids -> ids.contains(PRODUCT_ID_INVALID))))
+				.thenThrow(new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID));
+
+		when(compositeIntegration.streamProducts(1, 2))
+				.thenReturn(Flux.just(
+						new Product(1, "name", 1, "mock-address"),
+						new Product(2, "name", 1, "mock-address")));
+
+		when(compositeIntegration.getRecommendationsForProducts(anyList()))
+				.thenReturn(Flux.just(new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "mock address")));
+
+		when(compositeIntegration.getReviewsForProducts(anyList()))
+				.thenReturn(Flux.just(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock address")));
 	}
 
 	@Test
@@ -68,6 +112,113 @@ class ProductCompositeApplicationTests {
 				.jsonPath("$.reviews.length()").isEqualTo(1);
 	}
 
+	@Test
+	void getProductNotModified() {
+
+		String etag = client.get()
+				.uri("/product-composite/" + PRODUCT_ID_OK)
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().exists("ETag")
+				.returnResult(ProductAggregate.class)
+				.getResponseHeaders().getETag();
+
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID_OK)
+				.accept(APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectBody().isEmpty();
+	}
+
+	@Test
+	void getProductPage() {
+
+		getAndVerifyProduct(PRODUCT_ID_OK + "?limit=1", OK)
+				.jsonPath("$.productId").isEqualTo(PRODUCT_ID_OK)
+				.jsonPath("$.recommendations.length()").isEqualTo(1)
+				.jsonPath("$.recommendationsNextCursor").isEqualTo(1)
+				.jsonPath("$.reviews.length()").isEqualTo(1)
+				.jsonPath("$.reviewsNextCursor").doesNotExist();
+	}
+
+	@Test
+	void getProductPageInvalidLimit() {
+
+		getAndVerifyProduct(PRODUCT_ID_OK + "?limit=100000", UNPROCESSABLE_ENTITY)
+				.jsonPath("$.message").isEqualTo("Invalid limit: 100000, max is 500");
+	}
+
+	@Test
+	void getProductFields() {
+
+		getAndVerifyProduct(PRODUCT_ID_OK + "?fields=name", OK)
+				.jsonPath("$.productId").isEmpty()
+				.jsonPath("$.name").isEqualTo("name")
+				.jsonPath("$.weight").isEmpty()
+				.jsonPath("$.recommendations").isEmpty()
+				.jsonPath("$.reviews").isEmpty()
+				.jsonPath("$.serviceAddresses").isEmpty();
+
+		verify(compositeIntegration, never()).getRecommendations(anyInt());
+		verify(compositeIntegration, never()).getReviews(anyInt());
+	}
+
+	@Test
+	void getProductFieldsFromTheCachedAggregate() {
+
+		String etag = client.get()
+				.uri("/product-composite/" + PRODUCT_ID_OK)
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(ProductAggregate.class)
+				.getResponseHeaders().getETag();
+		clearInvocations(compositeIntegration);
+
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID_OK + "?fields=productId,reviews")
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals("ETag", etag)
+				.expectBody()
+				.jsonPath("$.productId").isEqualTo(PRODUCT_ID_OK)
+				.jsonPath("$.name").isEmpty()
+				.jsonPath("$.weight").isEmpty()
+				.jsonPath("$.recommendations").isEmpty()
+				.jsonPath("$.reviews.length()").isEqualTo(1);
+
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID_OK + "?fields=productId,reviews")
+				.accept(APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotModified();
+
+		verify(compositeIntegration, never()).getProduct(anyInt());
+		verify(compositeIntegration, never()).getReviews(anyInt());
+	}
+
+	@Test
+	void getProductFieldsReviewsOnly() {
+
+		getAndVerifyProduct(PRODUCT_ID_OK + "?fields=reviews", OK)
+				.jsonPath("$.recommendations").isEmpty()
+				.jsonPath("$.reviews.length()").isEqualTo(1);
+
+		verify(compositeIntegration, never()).getRecommendations(anyInt());
+	}
+
+	@Test
+	void getProductInvalidField() {
+
+		getAndVerifyProduct(PRODUCT_ID_OK + "?fields=name,price", UNPROCESSABLE_ENTITY)
+				.jsonPath("$.message").value(message -> assertTrue(((String) message).startsWith("Invalid field: price")));
+	}
+
 	@Test
 	void getProductNotFound() {
 
@@ -84,9 +235,91 @@ class ProductCompositeApplicationTests {
 				.jsonPath("$.message").isEqualTo("INVALID: " + PRODUCT_ID_INVALID);
 	}
 
+	@Test
+	void getProductCircuitOpen() {
+
+		getAndVerifyProduct(PRODUCT_ID_CIRCUIT_OPEN, SERVICE_UNAVAILABLE)
+				.jsonPath("$.path").isEqualTo("/product-composite/" + PRODUCT_ID_CIRCUIT_OPEN);
+	}
+
+	@Test
+	void getProductsByIds() {
+
+		getAndVerifyProducts("?ids=" + PRODUCT_ID_OK + "," + PRODUCT_ID_NOT_FOUND + "," + PRODUCT_ID_OK, OK)
+				.jsonPath("$.length()").isEqualTo(1)
+				.jsonPath("$[0].productId").isEqualTo(PRODUCT_ID_OK)
+				.jsonPath("$[0].recommendations.length()").isEqualTo(1)
+				.jsonPath("$[0].reviews.length()").isEqualTo(1);
+	}
+
+	@Test
+	void getProductsByIdsInvalidInput() {
+
+		getAndVerifyProducts("?ids=" + PRODUCT_ID_OK + "," + PRODUCT_ID_INVALID, UNPROCESSABLE_ENTITY)
+				.jsonPath("$.path").isEqualTo("/product-composite")
+				.jsonPath("$.message").isEqualTo("INVALID: " + PRODUCT_ID_INVALID);
+	}
+
+	@Test
+	void getProductsBatch() {
+
+		client.post()
+				.uri("/product-composite/batch")
+				.contentType(APPLICATION_JSON)
+				.bodyValue(List.of(PRODUCT_ID_NOT_FOUND, PRODUCT_ID_OK))
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(OK)
+				.expectHeader().contentType(APPLICATION_JSON)
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(1)
+				.jsonPath("$[0].productId").isEqualTo(PRODUCT_ID_OK);
+	}
+
+	@Test
+	void streamProducts() {
+
+		client.get()
+				.uri("/product-composite/stream?fromId=1&toId=2")
+				.accept(APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isEqualTo(OK)
+				.expectHeader().contentTypeCompatibleWith(APPLICATION_NDJSON)
+				.returnResult(ProductAggregate.class)
+				.getResponseBody()
+				.map(ProductAggregate::getProductId)
+				.as(StepVerifier::create)
+				.expectNext(1, 2)
+				.verifyComplete();
+	}
+
+	@Test
+	void streamProductsInvalidRange() {
+
+		client.get()
+				.uri("/product-composite/stream?fromId=2&toId=1")
+				.accept(APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isEqualTo(UNPROCESSABLE_ENTITY);
+	}
+
+	private WebTestClient.BodyContentSpec getAndVerifyProducts(String query, HttpStatus expectedStatus) {
+		return client.get()
+				.uri("/product-composite" + query)
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(expectedStatus)
+				.expectHeader().contentType(APPLICATION_JSON)
+				.expectBody();
+	}
+
 	private WebTestClient.BodyContentSpec getAndVerifyProduct(int productId, HttpStatus expectedStatus) {
+		return getAndVerifyProduct("" + productId, expectedStatus);
+	}
+
+	private WebTestClient.BodyContentSpec getAndVerifyProduct(String productIdPath, HttpStatus expectedStatus) {
 		return client.get()
-				.uri("/product-composite/" + productId)
+				.uri("/product-composite/" + productIdPath)
 				.accept(APPLICATION_JSON)
 				.exchange()
 				.expectStatus().isEqualTo(expectedStatus)
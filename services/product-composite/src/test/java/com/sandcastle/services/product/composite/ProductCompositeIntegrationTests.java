@@ -0,0 +1,99 @@
+package com.sandcastle.services.product.composite;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sandcastle.api.exceptions.NotFoundException;
+import com.sandcastle.common.http.HttpErrorInfo;
+import com.sandcastle.services.product.composite.services.CompositeMetrics;
+import com.sandcastle.services.product.composite.services.EventPublisher;
+import com.sandcastle.services.product.composite.services.ProductCompositeIntegration;
+import com.sandcastle.services.product.composite.services.RequestCoalescer;
+import com.sandcastle.services.product.composite.services.RequestHedger;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+import static org.mockito.Mockito.mock;
+
+class ProductCompositeIntegrationTests {
+
+  private static final String MESSAGE = "No product found for productId: 13";
+
+  private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+  private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+
+  // A product service that answers with a Smile encoded error for product 13, and a JSON encoded one for 14
+  private final DisposableServer server = HttpServer.create()
+    .port(0)
+    .route(routes -> routes
+      .get("/product/13", (request, response) -> response.status(HttpResponseStatus.NOT_FOUND)
+        .header(HttpHeaderNames.CONTENT_TYPE, "application/x-jackson-smile")
+        .sendByteArray(Mono.fromCallable(() -> notFound(smileMapper))))
+      .get("/product/14", (request, response) -> response.status(HttpResponseStatus.NOT_FOUND)
+        .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+        .sendByteArray(Mono.fromCallable(() -> notFound(jsonMapper)))))
+    .bindNow();
+
+  private final ProductCompositeIntegration integration = createIntegration(server.port());
+
+  @AfterEach
+  void disposeServer() {
+    server.disposeNow();
+  }
+
+  @Test
+  void smileErrorBodyIsDecoded() {
+
+    StepVerifier.create(integration.getProduct(13))
+      .expectErrorMatches(ex -> ex instanceof NotFoundException && MESSAGE.equals(ex.getMessage()))
+      .verify();
+  }
+
+  @Test
+  void jsonErrorBodyIsDecoded() {
+
+    StepVerifier.create(integration.getProduct(14))
+      .expectErrorMatches(ex -> ex instanceof NotFoundException && MESSAGE.equals(ex.getMessage()))
+      .verify();
+  }
+
+  private byte[] notFound(ObjectMapper mapper) {
+    try {
+      return mapper.writeValueAsBytes(new HttpErrorInfo(HttpStatus.NOT_FOUND, "/product/13", MESSAGE));
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private ProductCompositeIntegration createIntegration(int port) {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    WebClient client = WebClient.builder().build();
+    Duration timeout = Duration.ofSeconds(2);
+
+    return new ProductCompositeIntegration(client, client, client, client, client, client,
+      jsonMapper,
+      mock(EventPublisher.class),
+      new CompositeMetrics(registry),
+      new RequestCoalescer(false),
+      new RequestHedger(false, 0.95, Duration.ofMillis(10), Duration.ofMillis(100), 100, registry),
+      CircuitBreakerRegistry.ofDefaults(),
+      BulkheadRegistry.ofDefaults(),
+      "localhost", port, timeout,
+      "localhost", port, timeout,
+      "localhost", port, timeout);
+  }
+}
@@ -0,0 +1,66 @@
+package com.sandcastle.services.product.composite;
+
+import com.mongodb.client.result.UpdateResult;
+import com.sandcastle.api.composite.product.ProductAggregate;
+import com.sandcastle.api.core.product.Product;
+import com.sandcastle.api.event.Event;
+import com.sandcastle.services.product.composite.readmodel.ProductAggregateDocument;
+import com.sandcastle.services.product.composite.readmodel.ReadModelProjector;
+import com.sandcastle.services.product.composite.services.ProductAggregateCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.sandcastle.api.event.Event.Type.CREATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadModelProjectorTests {
+
+  private final ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+  private final ProductAggregateCache aggregateCache =
+    new ProductAggregateCache(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+  private final ReadModelProjector projector = new ReadModelProjector(mongoTemplate, aggregateCache);
+
+  @Test
+  void aggregateCachedBeforeTheWriteCompletesIsEvicted() {
+
+    Sinks.One<UpdateResult> write = Sinks.one();
+    when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ProductAggregateDocument.class)))
+      .thenReturn(write.asMono());
+
+    // The aggregateCacheInvalidator has evicted the product, the projector is still writing
+    projector.projectProductEvent(new Event<>(CREATE, 1, new Product(1, "new", 1, null))).subscribe();
+
+    // A request in between caches the aggregate read from the document before the update
+    AtomicInteger loads = new AtomicInteger();
+    ProductAggregate stale = new ProductAggregate(1, "old", 1, List.of(), List.of(), null);
+    ProductAggregate updated = new ProductAggregate(1, "new", 1, List.of(), List.of(), null);
+    assertEquals("old", aggregateCache.get(1, () -> load(loads, stale)).block().getName());
+    assertEquals("old", aggregateCache.get(1, () -> load(loads, updated)).block().getName());
+
+    write.tryEmitValue(UpdateResult.acknowledged(1, 1L, null));
+
+    assertEquals("new", aggregateCache.get(1, () -> load(loads, updated)).block().getName());
+    assertEquals(2, loads.get());
+  }
+
+  private Mono<ProductAggregate> load(AtomicInteger loads, ProductAggregate aggregate) {
+    return Mono.fromCallable(() -> {
+      loads.incrementAndGet();
+      return aggregate;
+    });
+  }
+}
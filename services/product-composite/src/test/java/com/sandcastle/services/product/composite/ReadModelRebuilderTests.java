@@ -0,0 +1,86 @@
+package com.sandcastle.services.product.composite;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.sandcastle.api.composite.product.ProductAggregate;
+import com.sandcastle.api.composite.product.ProductCompositeService;
+import com.sandcastle.services.product.composite.readmodel.ProductAggregateDocument;
+import com.sandcastle.services.product.composite.readmodel.ReadModelRebuilder;
+import com.sandcastle.services.product.composite.services.ProductAggregateCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.sandcastle.services.product.composite.readmodel.ProductAggregateDocument.UPDATED_AT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadModelRebuilderTests {
+
+  private final ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+  private final ProductCompositeService compositeService = mock(ProductCompositeService.class);
+
+  private final ReadModelRebuilder rebuilder = new ReadModelRebuilder(mongoTemplate, compositeService,
+    new ProductAggregateCache(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry()), false, 1);
+
+  @Test
+  void documentsUpdatedDuringTheRebuildAreNotReplaced() {
+
+    when(compositeService.streamProducts(1, Integer.MAX_VALUE)).thenReturn(Flux.just(
+      new ProductAggregate(1, "name 1", 1, List.of(), List.of(), null),
+      new ProductAggregate(2, "name 2", 2, List.of(), List.of(), null)));
+    when(mongoTemplate.upsert(argThat(byProductId(1)), any(Update.class), eq(ProductAggregateDocument.class)))
+      .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+    // The projector has updated product 2 since the rebuild started
+    when(mongoTemplate.upsert(argThat(byProductId(2)), any(Update.class), eq(ProductAggregateDocument.class)))
+      .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key error")));
+    when(mongoTemplate.remove(any(Query.class), eq(ProductAggregateDocument.class)))
+      .thenReturn(Mono.just(DeleteResult.acknowledged(3)));
+
+    assertTrue(rebuilder.rebuild());
+
+    assertEquals("done", rebuilder.getStatus().get("status"));
+    assertEquals(1L, rebuilder.getStatus().get("productCount"));
+    assertEquals(1L, rebuilder.getStatus().get("skippedCount"));
+
+    verify(mongoTemplate, times(2)).upsert(
+      argThat(query -> query.getQueryObject().containsKey(UPDATED_AT)), any(Update.class), eq(ProductAggregateDocument.class));
+  }
+
+  @Test
+  void documentsNotReloadedOrUpdatedDuringTheRebuildAreRemoved() {
+
+    when(compositeService.streamProducts(1, Integer.MAX_VALUE)).thenReturn(Flux.empty());
+    when(mongoTemplate.remove(any(Query.class), eq(ProductAggregateDocument.class)))
+      .thenReturn(Mono.just(DeleteResult.acknowledged(3)));
+
+    rebuilder.rebuild();
+
+    ArgumentCaptor<Query> remove = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).remove(remove.capture(), eq(ProductAggregateDocument.class));
+    assertEquals(rebuilder.getStatus().get("startedAt"),
+      String.valueOf(remove.getValue().getQueryObject().get(UPDATED_AT, Document.class).get("$lt")));
+  }
+
+  private static ArgumentMatcher<Query> byProductId(int productId) {
+    return query -> query != null && Integer.valueOf(productId).equals(query.getQueryObject().get("_id"));
+  }
+}
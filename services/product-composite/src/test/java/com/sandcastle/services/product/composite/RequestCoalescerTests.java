@@ -0,0 +1,70 @@
+package com.sandcastle.services.product.composite;
+
+import com.sandcastle.services.product.composite.services.RequestCoalescer;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestCoalescerTests {
+
+  private final RequestCoalescer coalescer = new RequestCoalescer(true);
+
+  @Test
+  void concurrentCallersShareOneCall() {
+
+    AtomicInteger calls = new AtomicInteger();
+    Sinks.One<String> response = Sinks.one();
+
+    Mono<String> first = coalescer.coalesce("product", 1, () -> {
+      calls.incrementAndGet();
+      return response.asMono();
+    });
+    Mono<String> second = coalescer.coalesce("product", 1, () -> {
+      calls.incrementAndGet();
+      return Mono.just("second");
+    });
+
+    StepVerifier.create(Flux.merge(first, second))
+      .then(() -> response.tryEmitValue("first"))
+      .expectNext("first", "first")
+      .verifyComplete();
+
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void differentKeysAreNotShared() {
+
+    AtomicInteger calls = new AtomicInteger();
+
+    Mono<Integer> product1 = coalescer.coalesce("product", 1, () -> Mono.fromCallable(calls::incrementAndGet));
+    Mono<Integer> review1 = coalescer.coalesce("review", 1, () -> Mono.fromCallable(calls::incrementAndGet));
+    Mono<Integer> product2 = coalescer.coalesce("product", 2, () -> Mono.fromCallable(calls::incrementAndGet));
+
+    StepVerifier.create(Flux.concat(product1, review1, product2)).expectNextCount(3).verifyComplete();
+
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  void completedCallsAreNotReused() {
+
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(coalescer.coalesceMany("review", 1, () -> Flux.just(calls.incrementAndGet(), 10)))
+      .expectNext(1, 10)
+      .verifyComplete();
+
+    StepVerifier.create(coalescer.coalesceMany("review", 1, () -> Flux.just(calls.incrementAndGet(), 10)))
+      .expectNext(2, 10)
+      .verifyComplete();
+
+    assertEquals(2, calls.get());
+  }
+}
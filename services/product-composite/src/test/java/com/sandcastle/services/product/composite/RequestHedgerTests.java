@@ -0,0 +1,93 @@
+package com.sandcastle.services.product.composite;
+
+import com.sandcastle.services.product.composite.services.RequestHedger;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestHedgerTests {
+
+  private final RequestHedger hedger = new RequestHedger(
+    true, 0.95, Duration.ofMillis(10), Duration.ofMillis(50), 100, new SimpleMeterRegistry());
+
+  @Test
+  void fastResponsesAreNotHedged() {
+
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(hedger.hedge("review", () -> Mono.fromCallable(calls::incrementAndGet)))
+      .expectNext(1)
+      .verifyComplete();
+
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void slowResponsesAreHedged() {
+
+    AtomicInteger calls = new AtomicInteger();
+
+    // The first call never answers, the hedged call answers right away
+    StepVerifier.create(hedger.hedge("review", () ->
+        calls.incrementAndGet() == 1 ? Mono.<String>never() : Mono.just("hedged")))
+      .expectNext("hedged")
+      .expectComplete()
+      .verify(Duration.ofSeconds(5));
+
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void hedgedRequestsAreSentWithTheHedgedCall() {
+
+    StepVerifier.create(hedger.hedge("review", Mono::<String>never, () -> Mono.just("hedge client")))
+      .expectNext("hedge client")
+      .expectComplete()
+      .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void hedgedCallsDoNotLowerTheHedgeDelay() {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    RequestHedger hedger = new RequestHedger(true, 0.95, Duration.ofMillis(1), Duration.ofMillis(20), 10, registry);
+
+    // The first requests never answer, the hedged ones answer right away
+    for (int i = 0; i < 20; i++) {
+      StepVerifier.create(hedger.hedge("review", Mono::<String>never, () -> Mono.just("hedged")))
+        .expectNext("hedged")
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+    }
+
+    Timer latency = registry.get("composite.hedging.latency").timer();
+    assertEquals(20, latency.count());
+    ValueAtPercentile p95 = latency.takeSnapshot().percentileValues()[0];
+    assertTrue(p95.value(TimeUnit.MILLISECONDS) >= 20, "p95: " + p95);
+  }
+
+  @Test
+  void fastErrorsAreNotHedged() {
+
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(hedger.hedge("product", () -> {
+        calls.incrementAndGet();
+        return Mono.error(new IllegalStateException("failed"));
+      }))
+      .expectError(IllegalStateException.class)
+      .verify(Duration.ofSeconds(5));
+
+    assertEquals(1, calls.get());
+  }
+}
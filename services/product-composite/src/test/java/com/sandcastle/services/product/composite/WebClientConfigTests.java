@@ -0,0 +1,90 @@
+package com.sandcastle.services.product.composite;
+
+import com.sandcastle.services.product.composite.services.WebClientConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class WebClientConfigTests {
+
+  private final MockEnvironment env = new MockEnvironment()
+    .withProperty("app.product.pool.maxConnections", "7")
+    .withProperty("app.product.pool.pendingAcquireMaxCount", "14")
+    .withProperty("app.recommendation.pool.maxConnections", "8")
+    .withProperty("app.review.pool.maxConnections", "9")
+    .withProperty("app.hedging.pool.maxConnections", "3");
+
+  private final WebClientConfig config = new WebClientConfig(env);
+
+  private final List<ConnectionProvider> providers = List.of(
+    config.productConnectionProvider(),
+    config.recommendationConnectionProvider(),
+    config.reviewConnectionProvider(),
+    config.hedgeConnectionProvider());
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @BeforeEach
+  void addRegistry() {
+    Metrics.addRegistry(registry);
+  }
+
+  @AfterEach
+  void disposeProviders() {
+    providers.forEach(ConnectionProvider::dispose);
+    Metrics.removeRegistry(registry);
+  }
+
+  @Test
+  void poolsAreCreatedFromTheirServiceProperties() {
+
+    assertEquals(List.of("product", "recommendation", "review", "hedging"),
+      providers.stream().map(ConnectionProvider::name).toList());
+    assertEquals(List.of(7, 8, 9, 3),
+      providers.stream().map(ConnectionProvider::maxConnections).toList());
+  }
+
+  @Test
+  void poolsPublishTheirMetrics() {
+
+    DisposableServer server = HttpServer.create()
+      .port(0)
+      .handle((request, response) -> response.sendString(Mono.just("ok")))
+      .bindNow();
+
+    try {
+      WebClient client = config.productWebClient(WebClient.builder(), providers.get(0));
+      assertEquals("ok", client.get().uri("http://localhost:" + server.port()).retrieve().bodyToMono(String.class).block());
+
+      assertEquals(7.0, poolGauge("reactor.netty.connection.provider.max.connections", server.port()).value());
+      assertEquals(14.0, poolGauge("reactor.netty.connection.provider.max.pending.connections", server.port()).value());
+
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  // Reactor Netty registers the gauges of a pool in the global registry when it connects to a remote address
+  private Gauge poolGauge(String name, int port) {
+    Gauge gauge = registry.find(name).tag("name", "product").gauges().stream()
+      .filter(g -> g.getId().getTag("remote.address").endsWith(":" + port))
+      .findFirst()
+      .orElse(null);
+    assertNotNull(gauge, name);
+    return gauge;
+  }
+}
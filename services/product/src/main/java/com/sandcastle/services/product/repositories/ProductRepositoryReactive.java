@@ -1,9 +1,21 @@
 package com.sandcastle.services.product.repositories;
 
 import com.sandcastle.services.product.entities.ProductEntity;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 public interface ProductRepositoryReactive extends ReactiveCrudRepository<ProductEntity, String> {
     Mono<ProductEntity> findByProductId(int productId);
+
+    Flux<ProductEntity> findByProductIdInOrderByProductIdAsc(Collection<Integer> productIds);
+
+    @Query(value = "{ 'productId': { $gte: ?0, $lte: ?1 } }", sort = "{ 'productId': 1 }")
+    Flux<ProductEntity> findByProductIdRange(int fromId, int toId);
+
+    // One deleteMany, returns the number of deleted documents
+    Mono<Long> deleteByProductId(int productId);
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.sandcastle.services.product.services;
+
+import com.sandcastle.api.core.product.Product;
+import com.sandcastle.api.event.Event;
+import com.sandcastle.common.messaging.EventBatchProcessor;
+import com.sandcastle.common.messaging.MessageConsumerConfig;
+import com.sandcastle.common.messaging.MongoBulkWrites;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Consumes the product events in batches, see the batch_consumer profile.
+ *
+ * Consecutive CREATE events are written with one insertMany.
+ */
+@Configuration
+@Profile("batch_consumer")
+public class BatchMessageProcessorConfig {
+
+  private final ProductServiceImpl productService;
+
+  private final MessageProcessorConfig messageProcessorConfig;
+
+  private final MessageConsumerConfig messageConsumerConfig;
+
+  @Autowired
+  public BatchMessageProcessorConfig(
+    ProductServiceImpl productService,
+    MessageProcessorConfig messageProcessorConfig,
+    MessageConsumerConfig messageConsumerConfig) {
+
+    this.productService = productService;
+    this.messageProcessorConfig = messageProcessorConfig;
+    this.messageConsumerConfig = messageConsumerConfig;
+  }
+
+  @Bean
+  public Consumer<List<Event<Integer, Product>>> batchMessageProcessor() {
+    EventBatchProcessor<Product> processor = messageConsumerConfig.batchProcessor(
+      products -> productService.createProducts(products).then(),
+      MongoBulkWrites::insertedBeforeFailure,
+      messageProcessorConfig::processEvent);
+
+    return processor::process;
+  }
+}
@@ -4,13 +4,18 @@ import com.sandcastle.api.core.product.Product;
 import com.sandcastle.api.core.product.ProductService;
 import com.sandcastle.api.event.Event;
 import com.sandcastle.api.exceptions.EventProcessingException;
+import com.sandcastle.common.messaging.EventStreamProcessor;
+import com.sandcastle.common.messaging.MessageConsumerConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Configuration
 public class MessageProcessorConfig {
@@ -19,38 +24,44 @@ public class MessageProcessorConfig {
 
   private final ProductService productService;
 
+  private final MessageConsumerConfig messageConsumerConfig;
+
   @Autowired
-  public MessageProcessorConfig(ProductService productService) {
+  public MessageProcessorConfig(ProductService productService, MessageConsumerConfig messageConsumerConfig) {
     this.productService = productService;
+    this.messageConsumerConfig = messageConsumerConfig;
   }
 
   @Bean
-  public Consumer<Event<Integer, Product>> messageProcessor() {
-    return event -> {
-      LOG.info("Process message created at {}...", event.getEventCreatedAt());
+  public Function<Flux<Message<Event<Integer, Product>>>, Mono<Void>> messageProcessor() {
+    EventStreamProcessor<Product> processor = messageConsumerConfig.streamProcessor(this::processEvent);
 
-      switch (event.getEventType()) {
+    return processor::process;
+  }
 
-        case CREATE:
-          Product product = event.getData();
-          LOG.info("Create product with ID: {}", product.getProductId());
-          productService.createProduct(product).block();
-          break;
+  public Mono<Void> processEvent(Event<Integer, Product> event) {
+    LOG.info("Process message created at {}...", event.getEventCreatedAt());
 
-        case DELETE:
-          int productId = event.getKey();
-          LOG.info("Delete recommendations with ProductID: {}", productId);
-          productService.deleteProduct(productId).block();
-          break;
+    Mono<Void> result;
+    switch (event.getEventType()) {
+      case CREATE:
+        Product product = event.getData();
+        LOG.info("Create product with ID: {}", product.getProductId());
+        result = productService.createProduct(product).then();
+        break;
 
-        default:
-          String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE or DELETE event";
-          LOG.warn(errorMessage);
-          throw new EventProcessingException(errorMessage);
-      }
+      case DELETE:
+        int productId = event.getKey();
+        LOG.info("Delete product with ProductID: {}", productId);
+        result = productService.deleteProduct(productId);
+        break;
 
-      LOG.info("Message processing done!");
+      default:
+        String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE or DELETE event";
+        LOG.warn(errorMessage);
+        return Mono.error(new EventProcessingException(errorMessage));
+    }
 
-    };
+    return result.doOnSuccess(v -> LOG.info("Message processing done!"));
   }
 }
@@ -12,8 +12,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.sandcastle.common.http.ConditionalRequests.checkNotModified;
+import static com.sandcastle.common.http.ConditionalRequests.weakETag;
 import static java.util.logging.Level.FINE;
 
 @RestController
@@ -51,6 +58,23 @@ public class ProductServiceImpl implements ProductService {
         return newEntity;
     }
 
+    // Used by the batch consumer. saveAll inserts new entities with one ordered insertMany, so if a
+    // document fails, the documents before it are stored and the ones after it are not
+    public Flux<Product> createProducts(List<Product> body) {
+
+        body.forEach(product -> {
+            if (product.getProductId() < 1) {
+                throw new InvalidInputException("Invalid productId: " + product.getProductId());
+            }
+        });
+
+        LOG.debug("createProducts: creates {} products", body.size());
+
+        return repository.saveAll(body.stream().map(e -> mapper.apiToEntity(e)).collect(Collectors.toList()))
+                .log(LOG.getName(), FINE)
+                .map(e -> mapper.entityToApi(e));
+    }
+
     @Override
     public Mono<Product> getProduct(int productId) {
 
@@ -60,8 +84,42 @@ public class ProductServiceImpl implements ProductService {
 
         LOG.info("Will get product info for id={}", productId);
 
-        return repository.findByProductId(productId)
-                .switchIfEmpty(Mono.error(new NotFoundException("No product found for productId: " + productId)))
+        return checkNotModified(repository.findByProductId(productId)
+                        .switchIfEmpty(Mono.error(new NotFoundException("No product found for productId: " + productId)))
+                        .log(LOG.getName(), FINE)
+                        .map(e -> mapper.entityToApi(e))
+                        .map(e -> setServiceAddress(e)),
+                product -> weakETag(Stream.of(product.getProductId(), product.getVersion())));
+    }
+
+    @Override
+    public Flux<Product> getProducts(List<Integer> productIds) {
+
+        productIds.forEach(productId -> {
+            if (productId == null || productId < 1) {
+                throw new InvalidInputException("Invalid productId: " + productId);
+            }
+        });
+
+        LOG.info("Will get product info for {} ids", productIds.size());
+
+        return repository.findByProductIdInOrderByProductIdAsc(productIds)
+                .log(LOG.getName(), FINE)
+                .map(e -> mapper.entityToApi(e))
+                .map(e -> setServiceAddress(e));
+    }
+
+    @Override
+    public Flux<Product> streamProducts(int fromId, int toId) {
+
+        if (fromId < 1 || toId < fromId) {
+            throw new InvalidInputException("Invalid productId range: " + fromId + " - " + toId);
+        }
+
+        LOG.info("Will stream product info for ids {} - {}", fromId, toId);
+
+        // The reactive driver fetches cursor batches on demand, so a slow consumer slows down the reads
+        return repository.findByProductIdRange(fromId, toId)
                 .log(LOG.getName(), FINE)
                 .map(e -> mapper.entityToApi(e))
                 .map(e -> setServiceAddress(e));
@@ -75,10 +133,10 @@ public class ProductServiceImpl implements ProductService {
         }
 
         LOG.debug("deleteProduct: tries to delete an entity with productId: {}", productId);
-        return repository.findByProductId(productId)
+        return repository.deleteByProductId(productId)
                 .log(LOG.getName(), FINE)
-                .map(e -> repository.delete(e))
-                .flatMap(e -> e);
+                .doOnNext(count -> LOG.debug("deleteProduct: deleted {} entities with productId: {}", count, productId))
+                .then();
     }
 
     private Product setServiceAddress(Product e) {
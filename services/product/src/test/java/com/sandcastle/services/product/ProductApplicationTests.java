@@ -1,18 +1,27 @@
 package com.sandcastle.services.product;
 
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.sandcastle.api.core.product.Product;
 import com.sandcastle.api.event.Event;
 import com.sandcastle.api.exceptions.InvalidInputException;
 import com.sandcastle.services.product.repositories.ProductRepositoryReactive;
+import com.sandcastle.services.product.services.MessageProcessorConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
-import java.util.function.Consumer;
+import java.io.IOException;
+import java.util.function.Function;
 
 import static com.sandcastle.api.event.Event.Type.CREATE;
 import static com.sandcastle.api.event.Event.Type.DELETE;
@@ -20,15 +29,20 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
 @SpringBootTest(webEnvironment = RANDOM_PORT)
 class ProductApplicationTests extends MongoDbTestBase{
+	private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
 
 	@Autowired private WebTestClient client;
 	@Autowired private ProductRepositoryReactive repository;
 	@Autowired
 	@Qualifier("messageProcessor")
-	private Consumer<Event<Integer, Product>> messageProcessor;
+	private Function<Flux<Message<Event<Integer, Product>>>, Mono<Void>> messageProcessor;
+
+	@Autowired
+	private MessageProcessorConfig messageProcessorConfig;
 
 	@BeforeEach
 	void setupDb() {
@@ -68,7 +82,7 @@ class ProductApplicationTests extends MongoDbTestBase{
 
 		InvalidInputException thrown = assertThrows(
 				InvalidInputException.class,
-				() -> sendCreateProductEvent(productId),
+				() -> messageProcessorConfig.processEvent(createProductEvent(productId)).block(),
 				"Expected a InvalidInputException here!");
 		assertEquals("Duplicate key, Product Id: " + productId, thrown.getMessage());
 
@@ -89,6 +103,99 @@ class ProductApplicationTests extends MongoDbTestBase{
 
 	}
 
+	@Test
+	void getProductsByIds() {
+
+		sendCreateProductEvent(3);
+		sendCreateProductEvent(1);
+		sendCreateProductEvent(2);
+
+		getAndVerifyProduct("?ids=2,3,4,1", OK)
+				.jsonPath("$.length()").isEqualTo(3)
+				.jsonPath("$[0].productId").isEqualTo(1)
+				.jsonPath("$[1].productId").isEqualTo(2)
+				.jsonPath("$[2].productId").isEqualTo(3);
+	}
+
+	@Test
+	void streamProducts() {
+
+		sendCreateProductEvent(3);
+		sendCreateProductEvent(1);
+		sendCreateProductEvent(2);
+		sendCreateProductEvent(4);
+
+		client.get()
+				.uri("/product/stream?fromId=2&toId=3")
+				.accept(APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isEqualTo(OK)
+				.expectHeader().contentTypeCompatibleWith(APPLICATION_NDJSON)
+				.returnResult(Product.class)
+				.getResponseBody()
+				.map(Product::getProductId)
+				.as(StepVerifier::create)
+				.expectNext(2, 3)
+				.verifyComplete();
+	}
+
+	@Test
+	void getProductNotModified() {
+		int productId = 1;
+
+		sendCreateProductEvent(productId);
+
+		String etag = client.get()
+				.uri("/product/" + productId)
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(Product.class)
+				.getResponseHeaders().getETag();
+		assertNotNull(etag);
+
+		client.get()
+				.uri("/product/" + productId)
+				.accept(APPLICATION_JSON)
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectBody().isEmpty();
+	}
+
+	@Test
+	void getProductAsSmile() throws IOException {
+		int productId = 1;
+
+		sendCreateProductEvent(productId);
+
+		byte[] body = client.get()
+				.uri("/product/" + productId)
+				.accept(SMILE)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(SMILE)
+				.expectBody().returnResult().getResponseBody();
+
+		assertEquals(productId, new SmileMapper().readValue(body, Product.class).getProductId());
+	}
+
+	@Test
+	void getProductFallsBackToJson() {
+		int productId = 1;
+
+		sendCreateProductEvent(productId);
+
+		client.get()
+				.uri("/product/" + productId)
+				.accept(MediaType.ALL)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(APPLICATION_JSON)
+				.expectBody()
+				.jsonPath("$.productId").isEqualTo(productId);
+	}
+
 	@Test
 	void getProductNotFound() {
 
@@ -121,13 +228,20 @@ class ProductApplicationTests extends MongoDbTestBase{
 	}
 
 	private void sendCreateProductEvent(int productId) {
+		sendEvent(createProductEvent(productId));
+	}
+
+	private Event<Integer, Product> createProductEvent(int productId) {
 		Product product = new Product(productId, "Name " + productId, productId, "SA");
-		Event<Integer, Product> event = new Event(CREATE, productId, product);
-		messageProcessor.accept(event);
+		return new Event(CREATE, productId, product);
 	}
 
 	private void sendDeleteProductEvent(int productId) {
 		Event<Integer, Product> event = new Event(DELETE, productId, null);
-		messageProcessor.accept(event);
+		sendEvent(event);
+	}
+
+	private void sendEvent(Event<Integer, Product> event) {
+		messageProcessor.apply(Flux.just(MessageBuilder.withPayload(event).build())).block();
 	}
 }
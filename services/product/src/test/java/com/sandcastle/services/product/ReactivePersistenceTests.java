@@ -68,6 +68,13 @@ class ReactivePersistenceTests extends MongoDbTestBase {
     StepVerifier.create(repository.existsById(savedEntity.getId())).expectNext(false).verifyComplete();
   }
 
+  @Test
+  void deleteByProductId() {
+    StepVerifier.create(repository.deleteByProductId(savedEntity.getProductId())).expectNext(1L).verifyComplete();
+    StepVerifier.create(repository.deleteByProductId(savedEntity.getProductId())).expectNext(0L).verifyComplete();
+    StepVerifier.create(repository.existsById(savedEntity.getId())).expectNext(false).verifyComplete();
+  }
+
   @Test
   void getByProductId() {
 
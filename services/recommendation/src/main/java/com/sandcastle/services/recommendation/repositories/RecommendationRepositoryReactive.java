@@ -1,9 +1,21 @@
 package com.sandcastle.services.recommendation.repositories;
 
 import com.sandcastle.services.recommendation.entities.RecommendationEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
 
 public interface RecommendationRepositoryReactive extends ReactiveCrudRepository<RecommendationEntity, String> {
     Flux<RecommendationEntity> findByProductId(int productId);
+
+    Flux<RecommendationEntity> findByProductIdInOrderByProductIdAscRecommendationIdAsc(Collection<Integer> productIds);
+
+    // Keyset page, served by the prod-rec-id index
+    Flux<RecommendationEntity> findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(int productId, int cursor, Pageable pageable);
+
+    // One deleteMany, returns the number of deleted documents
+    Mono<Long> deleteByProductId(int productId);
 }
\ No newline at end of file
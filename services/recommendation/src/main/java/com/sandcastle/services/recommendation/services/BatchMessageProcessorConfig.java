@@ -0,0 +1,51 @@
+package com.sandcastle.services.recommendation.services;
+
+import com.sandcastle.api.core.recommendation.Recommendation;
+import com.sandcastle.api.event.Event;
+import com.sandcastle.common.messaging.EventBatchProcessor;
+import com.sandcastle.common.messaging.MessageConsumerConfig;
+import com.sandcastle.common.messaging.MongoBulkWrites;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Consumes the recommendation events in batches, see the batch_consumer profile.
+ *
+ * Consecutive CREATE and CREATE_BATCH events are written with one insertMany.
+ */
+@Configuration
+@Profile("batch_consumer")
+public class BatchMessageProcessorConfig {
+
+  private final RecommendationServiceImpl recommendationService;
+
+  private final MessageProcessorConfig messageProcessorConfig;
+
+  private final MessageConsumerConfig messageConsumerConfig;
+
+  @Autowired
+  public BatchMessageProcessorConfig(
+    RecommendationServiceImpl recommendationService,
+    MessageProcessorConfig messageProcessorConfig,
+    MessageConsumerConfig messageConsumerConfig) {
+
+    this.recommendationService = recommendationService;
+    this.messageProcessorConfig = messageProcessorConfig;
+    this.messageConsumerConfig = messageConsumerConfig;
+  }
+
+  @Bean
+  public Consumer<List<Event<Integer, Recommendation>>> batchMessageProcessor() {
+    EventBatchProcessor<Recommendation> processor = messageConsumerConfig.batchProcessor(
+      recommendations -> recommendationService.createRecommendations(recommendations).then(),
+      MongoBulkWrites::insertedBeforeFailure,
+      messageProcessorConfig::processEvent);
+
+    return processor::process;
+  }
+}
@@ -4,13 +4,18 @@ import com.sandcastle.api.core.recommendation.Recommendation;
 import com.sandcastle.api.core.recommendation.RecommendationService;
 import com.sandcastle.api.event.Event;
 import com.sandcastle.api.exceptions.EventProcessingException;
+import com.sandcastle.common.messaging.EventStreamProcessor;
+import com.sandcastle.common.messaging.MessageConsumerConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Configuration
 public class MessageProcessorConfig {
@@ -19,38 +24,49 @@ public class MessageProcessorConfig {
 
   private final RecommendationService recommendationService;
 
+  private final MessageConsumerConfig messageConsumerConfig;
+
   @Autowired
-  public MessageProcessorConfig(RecommendationService recommendationService) {
+  public MessageProcessorConfig(RecommendationService recommendationService, MessageConsumerConfig messageConsumerConfig) {
     this.recommendationService = recommendationService;
+    this.messageConsumerConfig = messageConsumerConfig;
   }
 
   @Bean
-  public Consumer<Event<Integer, Recommendation>> messageProcessor() {
-    return event -> {
+  public Function<Flux<Message<Event<Integer, Recommendation>>>, Mono<Void>> messageProcessor() {
+    EventStreamProcessor<Recommendation> processor = messageConsumerConfig.streamProcessor(this::processEvent);
+
+    return processor::process;
+  }
 
-      LOG.info("Process message created at {}...", event.getEventCreatedAt());
+  public Mono<Void> processEvent(Event<Integer, Recommendation> event) {
+    LOG.info("Process message created at {}...", event.getEventCreatedAt());
 
-      switch (event.getEventType()) {
+    Mono<Void> result;
+    switch (event.getEventType()) {
+      case CREATE:
+        Recommendation recommendation = event.getData();
+        LOG.info("Create recommendation with ID: {}/{}", recommendation.getProductId(), recommendation.getRecommendationId());
+        result = recommendationService.createRecommendation(recommendation).then();
+        break;
 
-        case CREATE:
-          Recommendation recommendation = event.getData();
-          LOG.info("Create recommendation with ID: {}/{}", recommendation.getProductId(), recommendation.getRecommendationId());
-          recommendationService.createRecommendation(recommendation).block();
-          break;
+      case CREATE_BATCH:
+        LOG.info("Create {} recommendations with ProductID: {}", event.getBatch().size(), event.getKey());
+        result = recommendationService.createRecommendations(event.getKey(), event.getBatch()).then();
+        break;
 
-        case DELETE:
-          int productId = event.getKey();
-          LOG.info("Delete recommendations with ProductID: {}", productId);
-          recommendationService.deleteRecommendations(productId).block();
-          break;
+      case DELETE:
+        int productId = event.getKey();
+        LOG.info("Delete recommendations with ProductID: {}", productId);
+        result = recommendationService.deleteRecommendations(productId);
+        break;
 
-        default:
-          String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE or DELETE event";
-          LOG.warn(errorMessage);
-          throw new EventProcessingException(errorMessage);
-      }
+      default:
+        String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE, CREATE_BATCH or DELETE event";
+        LOG.warn(errorMessage);
+        return Mono.error(new EventProcessingException(errorMessage));
+    }
 
-      LOG.info("Message processing done!");
-    };
+    return result.doOnSuccess(v -> LOG.info("Message processing done!"));
   }
 }
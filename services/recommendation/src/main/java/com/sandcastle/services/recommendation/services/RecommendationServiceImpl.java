@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -18,6 +19,8 @@ import reactor.core.publisher.Mono;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.sandcastle.common.http.ConditionalRequests.checkNotModified;
+import static com.sandcastle.common.http.ConditionalRequests.weakETag;
 import static java.util.logging.Level.FINE;
 
 @RestController
@@ -57,6 +60,43 @@ public class RecommendationServiceImpl implements RecommendationService {
         return newEntity;
     }
 
+    @Override
+    public Flux<Recommendation> createRecommendations(int productId, List<Recommendation> body) {
+
+        body.forEach(recommendation -> {
+            if (productId < 1 || recommendation.getProductId() != productId) {
+                throw new InvalidInputException("Invalid productId: " + recommendation.getProductId() + ", expected: " + productId);
+            }
+        });
+
+        LOG.debug("createRecommendations: creates {} recommendations for productId: {}", body.size(), productId);
+
+        // saveAll inserts new entities with one bulk insert
+        return repository.saveAll(mapper.apiListToEntityList(body))
+                .log(LOG.getName(), FINE)
+                .onErrorMap(
+                        DuplicateKeyException.class,
+                        ex -> new InvalidInputException("Duplicate key, Product Id: " + productId + ", " + ex.getMessage()))
+                .map(e -> mapper.entityToApi(e));
+    }
+
+    // Used by the batch consumer, creates the recommendations of several products. saveAll inserts new entities
+    // with one ordered insertMany, so if a document fails, the documents before it are stored and the ones after it are not
+    public Flux<Recommendation> createRecommendations(List<Recommendation> body) {
+
+        body.forEach(recommendation -> {
+            if (recommendation.getProductId() < 1) {
+                throw new InvalidInputException("Invalid productId: " + recommendation.getProductId());
+            }
+        });
+
+        LOG.debug("createRecommendations: creates {} recommendations", body.size());
+
+        return repository.saveAll(mapper.apiListToEntityList(body))
+                .log(LOG.getName(), FINE)
+                .map(e -> mapper.entityToApi(e));
+    }
+
     @Override
     public Flux<Recommendation> getRecommendations(int productId) {
 
@@ -66,7 +106,48 @@ public class RecommendationServiceImpl implements RecommendationService {
 
         LOG.info("Will get recommendations for product with id={}", productId);
 
-        return repository.findByProductId(productId)
+        return checkNotModified(repository.findByProductId(productId)
+                        .log(LOG.getName(), FINE)
+                        .map(e -> mapper.entityToApi(e))
+                        .map(e -> setServiceAddress(e)),
+                recommendations -> weakETag(recommendations.stream().map(r -> r.getRecommendationId() + ":" + r.getVersion())));
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendationsForProducts(List<Integer> productIds) {
+
+        productIds.forEach(productId -> {
+            if (productId == null || productId < 1) {
+                throw new InvalidInputException("Invalid productId: " + productId);
+            }
+        });
+
+        LOG.info("Will get recommendations for {} products", productIds.size());
+
+        return repository.findByProductIdInOrderByProductIdAscRecommendationIdAsc(productIds)
+                .log(LOG.getName(), FINE)
+                .map(e -> mapper.entityToApi(e))
+                .map(e -> setServiceAddress(e));
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendationsPage(int productId, int cursor, int limit) {
+
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+
+        if (cursor < 0) {
+            throw new InvalidInputException("Invalid cursor: " + cursor);
+        }
+
+        if (limit < 1) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+
+        LOG.info("Will get {} recommendations after id={} for product with id={}", limit, cursor, productId);
+
+        return repository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId, cursor, PageRequest.ofSize(limit))
                 .log(LOG.getName(), FINE)
                 .map(e -> mapper.entityToApi(e))
                 .map(e -> setServiceAddress(e));
@@ -80,7 +161,10 @@ public class RecommendationServiceImpl implements RecommendationService {
         }
 
         LOG.debug("deleteRecommendations: tries to delete recommendations for the product with productId: {}", productId);
-        return repository.deleteAll(repository.findByProductId(productId));
+        return repository.deleteByProductId(productId)
+                .log(LOG.getName(), FINE)
+                .doOnNext(count -> LOG.debug("deleteRecommendations: deleted {} recommendations for productId: {}", count, productId))
+                .then();
     }
 
     private Recommendation setServiceAddress(Recommendation e) {
@@ -63,6 +63,16 @@ class ReactivePersistenceTests extends MongoDbTestBase {
     assertFalse(repository.existsById(savedEntity.getId()).block());
   }
 
+  @Test
+  void deleteByProductId() {
+    repository.save(new RecommendationEntity(1, 3, "a", 3, "c")).block();
+    repository.save(new RecommendationEntity(2, 1, "a", 3, "c")).block();
+
+    assertEquals(2, (long)repository.deleteByProductId(1).block());
+    assertEquals(0, (long)repository.deleteByProductId(1).block());
+    assertEquals(1, (long)repository.count().block());
+  }
+
   @Test
   void getByProductId() {
     List<RecommendationEntity> entityList = repository.findByProductId(savedEntity.getProductId()).collectList().block();
@@ -5,15 +5,22 @@ import com.sandcastle.api.event.Event;
 import com.sandcastle.api.exceptions.InvalidInputException;
 import com.sandcastle.services.recommendation.repositories.RecommendationRepository;
 import com.sandcastle.services.recommendation.repositories.RecommendationRepositoryReactive;
+import com.sandcastle.services.recommendation.services.MessageProcessorConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.function.Consumer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
 
 import static com.sandcastle.api.event.Event.Type.CREATE;
 import static com.sandcastle.api.event.Event.Type.DELETE;
@@ -39,7 +46,10 @@ class RecommendationApplicationTests  extends MongoDbTestBase{
 
 	@Autowired
 	@Qualifier("messageProcessor")
-	private Consumer<Event<Integer, Recommendation>> messageProcessor;
+	private Function<Flux<Message<Event<Integer, Recommendation>>>, Mono<Void>> messageProcessor;
+
+	@Autowired
+	private MessageProcessorConfig messageProcessorConfig;
 
 	@BeforeEach
 	void setupDb() {
@@ -63,6 +73,40 @@ class RecommendationApplicationTests  extends MongoDbTestBase{
 				.jsonPath("$[2].recommendationId").isEqualTo(3);
 	}
 
+	@Test
+	void getRecommendationsByProductIds() {
+
+		sendCreateRecommendationEvent(2, 1);
+		sendCreateRecommendationEvent(1, 2);
+		sendCreateRecommendationEvent(1, 1);
+		sendCreateRecommendationEvent(3, 1);
+
+		getAndVerifyRecommendationsByProductId("?productIds=1,2", OK)
+				.jsonPath("$.length()").isEqualTo(3)
+				.jsonPath("$[0].productId").isEqualTo(1)
+				.jsonPath("$[0].recommendationId").isEqualTo(1)
+				.jsonPath("$[1].productId").isEqualTo(1)
+				.jsonPath("$[1].recommendationId").isEqualTo(2)
+				.jsonPath("$[2].productId").isEqualTo(2);
+	}
+
+	@Test
+	void getRecommendationsPage() {
+
+		sendCreateRecommendationEvent(1, 1);
+		sendCreateRecommendationEvent(1, 2);
+		sendCreateRecommendationEvent(1, 3);
+		sendCreateRecommendationEvent(2, 1);
+
+		getAndVerifyRecommendationsByProductId("?productId=1&cursor=1&limit=1", OK)
+				.jsonPath("$.length()").isEqualTo(1)
+				.jsonPath("$[0].productId").isEqualTo(1)
+				.jsonPath("$[0].recommendationId").isEqualTo(2);
+
+		getAndVerifyRecommendationsByProductId("?productId=1&cursor=3&limit=10", OK)
+				.jsonPath("$.length()").isEqualTo(0);
+	}
+
 	@Test
 	void duplicateError() {
 
@@ -75,13 +119,31 @@ class RecommendationApplicationTests  extends MongoDbTestBase{
 
 		InvalidInputException thrown = assertThrows(
 				InvalidInputException.class,
-				() -> sendCreateRecommendationEvent(productId, recommendationId),
+				() -> messageProcessorConfig.processEvent(createRecommendationEvent(productId, recommendationId)).block(),
 				"Expected a InvalidInputException here!");
 		assertEquals("Duplicate key, Product Id: 1, Recommendation Id:1", thrown.getMessage());
 
 		assertEquals(1, (long)repository.count().block());
 	}
 
+	@Test
+	void createRecommendationsBatch() {
+
+		int productId = 1;
+
+		List<Recommendation> recommendations = new ArrayList<>();
+		for (int recommendationId = 1; recommendationId <= 3; recommendationId++) {
+			recommendations.add(new Recommendation(productId, recommendationId, "Author " + recommendationId, recommendationId, "Content " + recommendationId, "SA"));
+		}
+		sendEvent(Event.batch(productId, recommendations));
+
+		assertEquals(3, (long)repository.findByProductId(productId).count().block());
+
+		getAndVerifyRecommendationsByProductId(productId, OK)
+				.jsonPath("$.length()").isEqualTo(3)
+				.jsonPath("$[2].recommendationId").isEqualTo(3);
+	}
+
 	@Test
 	void deleteRecommendations() {
 
@@ -145,13 +207,20 @@ class RecommendationApplicationTests  extends MongoDbTestBase{
 	}
 
 	private void sendCreateRecommendationEvent(int productId, int recommendationId) {
+		sendEvent(createRecommendationEvent(productId, recommendationId));
+	}
+
+	private Event<Integer, Recommendation> createRecommendationEvent(int productId, int recommendationId) {
 		Recommendation recommendation = new Recommendation(productId, recommendationId, "Author " + recommendationId, recommendationId, "Content " + recommendationId, "SA");
-		Event<Integer, Recommendation> event = new Event(CREATE, productId, recommendation);
-		messageProcessor.accept(event);
+		return new Event(CREATE, productId, recommendation);
 	}
 
 	private void sendDeleteRecommendationEvent(int productId) {
 		Event<Integer, Recommendation> event = new Event(DELETE, productId, null);
-		messageProcessor.accept(event);
+		sendEvent(event);
+	}
+
+	private void sendEvent(Event<Integer, Recommendation> event) {
+		messageProcessor.apply(Flux.just(MessageBuilder.withPayload(event).build())).block();
 	}
 }
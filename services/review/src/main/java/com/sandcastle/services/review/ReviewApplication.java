@@ -1,5 +1,6 @@
 package com.sandcastle.services.review;
 
+import com.sandcastle.common.scheduling.BlockingSchedulers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,8 +10,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.core.env.Profiles;
 import reactor.core.scheduler.Scheduler;
-import reactor.core.scheduler.Schedulers;
 
 @SpringBootApplication
 @ComponentScan("com.sandcastle")
@@ -19,27 +20,34 @@ public class ReviewApplication {
 
 	private final Integer threadPoolSize;
 	private final Integer taskQueueSize;
+	private final String schedulerMode;
+	private final Integer maxConcurrency;
 
 	@Autowired
 	public ReviewApplication(
 			@Value("${app.threadPoolSize:10}") Integer threadPoolSize,
-			@Value("${app.taskQueueSize:100}") Integer taskQueueSize
+			@Value("${app.taskQueueSize:100}") Integer taskQueueSize,
+			@Value("${app.scheduler.mode:boundedElastic}") String schedulerMode,
+			// More concurrent JDBC calls than connections would only wait for a connection
+			@Value("${app.scheduler.maxConcurrency:${spring.datasource.hikari.maximum-pool-size:10}}") Integer maxConcurrency
 	) {
 		this.threadPoolSize = threadPoolSize;
 		this.taskQueueSize = taskQueueSize;
+		this.schedulerMode = schedulerMode;
+		this.maxConcurrency = maxConcurrency;
 	}
 	@Bean
 	public Scheduler jdbcScheduler() {
-		LOG.info("Creates a jdbcScheduler with thread pool size = {}", threadPoolSize);
-		return Schedulers.newBoundedElastic(threadPoolSize,
-				taskQueueSize, "jdbc-pool");
+		return BlockingSchedulers.create(schedulerMode, "jdbc-pool", threadPoolSize, taskQueueSize, maxConcurrency);
 	}
 
 	public static void main(String[] args) {
 
 		ConfigurableApplicationContext ctx = SpringApplication.run(ReviewApplication.class, args);
 
-		String mysqlUri = ctx.getEnvironment().getProperty("spring.datasource.url");
+		String mysqlUri = ctx.getEnvironment().acceptsProfiles(Profiles.of("r2dbc"))
+				? ctx.getEnvironment().getProperty("spring.r2dbc.url")
+				: ctx.getEnvironment().getProperty("spring.datasource.url");
 		LOG.info("Connected to MySQL: " + mysqlUri);
 	}
 
@@ -0,0 +1,12 @@
+package com.sandcastle.services.review.r2dbc;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+
+// Only scans this package, the JPA repositories are not reactive
+@Configuration
+@Profile("r2dbc")
+@EnableR2dbcRepositories(basePackageClasses = ReviewR2dbcRepository.class)
+class R2dbcConfig {
+}
@@ -0,0 +1,25 @@
+package com.sandcastle.services.review.r2dbc;
+
+import com.sandcastle.api.core.review.Review;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ReviewR2dbcMapper {
+
+  @Mappings({
+    @Mapping(target = "serviceAddress", ignore = true)
+  })
+  Review entityToApi(ReviewR2dbcEntity entity);
+
+  @Mappings({
+    @Mapping(target = "id", ignore = true),
+    @Mapping(target = "version", ignore = true)
+  })
+  ReviewR2dbcEntity apiToEntity(Review api);
+
+  List<ReviewR2dbcEntity> apiListToEntityList(List<Review> api);
+}
@@ -0,0 +1,26 @@
+package com.sandcastle.services.review.r2dbc;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReviewR2dbcRepository extends ReactiveCrudRepository<ReviewR2dbcEntity, Integer> {
+
+  Flux<ReviewR2dbcEntity> findByProductId(int productId);
+
+  Flux<ReviewR2dbcEntity> findByProductIdInOrderByProductIdAscReviewIdAsc(Collection<Integer> productIds);
+
+  // Keyset page, served by the reviews_unique_idx index
+  Flux<ReviewR2dbcEntity> findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(int productId, int cursor, Pageable pageable);
+
+  // One DELETE statement, returns the number of deleted rows
+  @Modifying
+  @Query("DELETE FROM reviews WHERE product_id = :productId")
+  Mono<Integer> deleteByProductId(@Param("productId") int productId);
+}
@@ -0,0 +1,176 @@
+package com.sandcastle.services.review.r2dbc;
+
+import com.sandcastle.api.core.review.Review;
+import com.sandcastle.api.exceptions.InvalidInputException;
+import com.sandcastle.common.http.ServiceUtil;
+import com.sandcastle.services.review.services.BulkReviewService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.sandcastle.common.http.ConditionalRequests.checkNotModified;
+import static com.sandcastle.common.http.ConditionalRequests.weakETag;
+import static java.util.logging.Level.FINE;
+
+/**
+ * The review service on R2DBC, selected with the r2dbc profile.
+ *
+ * Same API and table as ReviewServiceImpl, but the database calls are non-blocking,
+ * so they run on the event loop instead of the jdbcScheduler.
+ */
+@RestController
+@Profile("r2dbc")
+public class ReviewR2dbcServiceImpl implements BulkReviewService {
+    private static final Logger LOG = LoggerFactory.getLogger(ReviewR2dbcServiceImpl.class);
+
+    private final ReviewR2dbcRepository repository;
+
+    private final ReviewR2dbcMapper mapper;
+
+    private final ServiceUtil serviceUtil;
+
+    private final TransactionalOperator transactionalOperator;
+
+    @Autowired
+    public ReviewR2dbcServiceImpl(ReviewR2dbcRepository repository, ReviewR2dbcMapper mapper, ServiceUtil serviceUtil, TransactionalOperator transactionalOperator) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.serviceUtil = serviceUtil;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    @Override
+    public Mono<Review> createReview(Review body) {
+
+        if (body.getProductId() < 1) {
+            throw new InvalidInputException("Invalid productId: " + body.getProductId());
+        }
+
+        return repository.save(mapper.apiToEntity(body))
+                .log(LOG.getName(), FINE)
+                .onErrorMap(
+                        DataIntegrityViolationException.class,
+                        ex -> new InvalidInputException("Duplicate key, Product Id: " + body.getProductId() + ", Review Id:" + body.getReviewId()))
+                .doOnNext(e -> LOG.debug("createReview: created a review entity: {}/{}", e.getProductId(), e.getReviewId()))
+                .map(mapper::entityToApi);
+    }
+
+    // One transaction, all or none of the reviews are created
+    @Override
+    public Flux<Review> createReviews(int productId, List<Review> body) {
+
+        body.forEach(review -> {
+            if (productId < 1 || review.getProductId() != productId) {
+                throw new InvalidInputException("Invalid productId: " + review.getProductId() + ", expected: " + productId);
+            }
+        });
+
+        return repository.saveAll(mapper.apiListToEntityList(body))
+                .as(transactionalOperator::transactional)
+                .log(LOG.getName(), FINE)
+                .onErrorMap(
+                        DataIntegrityViolationException.class,
+                        ex -> new InvalidInputException("Duplicate key, Product Id: " + productId + ", in a batch of " + body.size() + " reviews"))
+                .map(mapper::entityToApi)
+                .doOnComplete(() -> LOG.debug("createReviews: created {} review entities for productId: {}", body.size(), productId));
+    }
+
+    // One transaction, R2DBC has no batch inserts but the inserts are sent one after the other on its connection
+    @Override
+    public Flux<Review> createReviews(List<Review> body) {
+
+        body.forEach(review -> {
+            if (review.getProductId() < 1) {
+                throw new InvalidInputException("Invalid productId: " + review.getProductId());
+            }
+        });
+
+        return repository.saveAll(mapper.apiListToEntityList(body))
+                .as(transactionalOperator::transactional)
+                .log(LOG.getName(), FINE)
+                .map(mapper::entityToApi);
+    }
+
+    @Override
+    public Flux<Review> getReviews(int productId) {
+
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+
+        LOG.info("Will get reviews for product with id={}", productId);
+
+        return checkNotModified(repository.findByProductId(productId)
+                        .log(LOG.getName(), FINE)
+                        .map(this::toApi),
+                reviews -> weakETag(reviews.stream().map(r -> r.getReviewId() + ":" + r.getVersion())));
+    }
+
+    @Override
+    public Flux<Review> getReviewsForProducts(List<Integer> productIds) {
+
+        productIds.forEach(productId -> {
+            if (productId == null || productId < 1) {
+                throw new InvalidInputException("Invalid productId: " + productId);
+            }
+        });
+
+        LOG.info("Will get reviews for {} products", productIds.size());
+
+        return repository.findByProductIdInOrderByProductIdAscReviewIdAsc(productIds)
+                .log(LOG.getName(), FINE)
+                .map(this::toApi);
+    }
+
+    @Override
+    public Flux<Review> getReviewsPage(int productId, int cursor, int limit) {
+
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+
+        if (cursor < 0) {
+            throw new InvalidInputException("Invalid cursor: " + cursor);
+        }
+
+        if (limit < 1) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+
+        LOG.info("Will get {} reviews after id={} for product with id={}", limit, cursor, productId);
+
+        return repository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(productId, cursor, PageRequest.ofSize(limit))
+                .log(LOG.getName(), FINE)
+                .map(this::toApi);
+    }
+
+    @Override
+    public Mono<Void> deleteReviews(int productId) {
+
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+
+        LOG.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
+
+        return repository.deleteByProductId(productId)
+                .log(LOG.getName(), FINE)
+                .doOnNext(count -> LOG.debug("deleteReviews: deleted {} reviews for productId: {}", count, productId))
+                .then();
+    }
+
+    private Review toApi(ReviewR2dbcEntity entity) {
+        Review review = mapper.entityToApi(entity);
+        review.setServiceAddress(serviceUtil.getServiceAddress());
+        return review;
+    }
+}
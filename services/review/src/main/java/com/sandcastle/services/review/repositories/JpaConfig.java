@@ -0,0 +1,12 @@
+package com.sandcastle.services.review.repositories;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+// Only scans this package, JPA does not support the reactive repositories of the r2dbc profile
+@Configuration
+@Profile("!r2dbc")
+@EnableJpaRepositories(basePackageClasses = ReviewRepository.class)
+class JpaConfig {
+}
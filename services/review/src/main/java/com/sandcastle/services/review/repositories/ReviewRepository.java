@@ -1,13 +1,31 @@
 package com.sandcastle.services.review.repositories;
 
 import com.sandcastle.services.review.entities.ReviewEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ReviewRepository extends CrudRepository<ReviewEntity, Integer> {
 
   @Transactional(readOnly = true)
   List<ReviewEntity> findByProductId(int productId);
+
+  @Transactional(readOnly = true)
+  List<ReviewEntity> findByProductIdInOrderByProductIdAscReviewIdAsc(Collection<Integer> productIds);
+
+  // Keyset page, served by the reviews_unique_idx index
+  @Transactional(readOnly = true)
+  List<ReviewEntity> findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(int productId, int cursor, Pageable pageable);
+
+  // One DELETE statement, without loading the entities or checking their versions
+  @Modifying
+  @Transactional
+  @Query("delete from ReviewEntity r where r.productId = :productId")
+  int deleteByProductId(@Param("productId") int productId);
 }
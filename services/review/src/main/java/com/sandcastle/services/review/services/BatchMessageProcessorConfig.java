@@ -0,0 +1,51 @@
+package com.sandcastle.services.review.services;
+
+import com.sandcastle.api.core.review.Review;
+import com.sandcastle.api.event.Event;
+import com.sandcastle.common.messaging.EventBatchProcessor;
+import com.sandcastle.common.messaging.MessageConsumerConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Consumes the review events in batches, see the batch_consumer profile.
+ *
+ * Consecutive CREATE and CREATE_BATCH events are written in one transaction. It is rolled back
+ * on failure, so no review of a failed bulk create is stored.
+ */
+@Configuration
+@Profile("batch_consumer")
+public class BatchMessageProcessorConfig {
+
+  private final BulkReviewService reviewService;
+
+  private final MessageProcessorConfig messageProcessorConfig;
+
+  private final MessageConsumerConfig messageConsumerConfig;
+
+  @Autowired
+  public BatchMessageProcessorConfig(
+    BulkReviewService reviewService,
+    MessageProcessorConfig messageProcessorConfig,
+    MessageConsumerConfig messageConsumerConfig) {
+
+    this.reviewService = reviewService;
+    this.messageProcessorConfig = messageProcessorConfig;
+    this.messageConsumerConfig = messageConsumerConfig;
+  }
+
+  @Bean
+  public Consumer<List<Event<Integer, Review>>> batchMessageProcessor() {
+    EventBatchProcessor<Review> processor = messageConsumerConfig.batchProcessor(
+      reviews -> reviewService.createReviews(reviews).then(),
+      ex -> 0,
+      messageProcessorConfig::processEvent);
+
+    return processor::process;
+  }
+}
@@ -0,0 +1,18 @@
+package com.sandcastle.services.review.services;
+
+import com.sandcastle.api.core.review.Review;
+import com.sandcastle.api.core.review.ReviewService;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * The review service with the bulk create of the batch consumer, implemented in both persistence modes.
+ */
+public interface BulkReviewService extends ReviewService {
+
+  /**
+   * Creates the reviews of several products in one transaction.
+   */
+  Flux<Review> createReviews(List<Review> body);
+}
@@ -4,14 +4,18 @@ import com.sandcastle.api.core.review.Review;
 import com.sandcastle.api.core.review.ReviewService;
 import com.sandcastle.api.event.Event;
 import com.sandcastle.api.exceptions.EventProcessingException;
+import com.sandcastle.common.messaging.EventStreamProcessor;
+import com.sandcastle.common.messaging.MessageConsumerConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-
-import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Configuration
 public class MessageProcessorConfig {
@@ -20,37 +24,49 @@ public class MessageProcessorConfig {
 
   private final ReviewService reviewService;
 
+  private final MessageConsumerConfig messageConsumerConfig;
+
   @Autowired
-  public MessageProcessorConfig(ReviewService reviewService) {
+  public MessageProcessorConfig(ReviewService reviewService, MessageConsumerConfig messageConsumerConfig) {
     this.reviewService = reviewService;
+    this.messageConsumerConfig = messageConsumerConfig;
   }
 
   @Bean
-  public Consumer<Event<Integer, Review>> messageProcessor() {
-    return event -> {
-      LOG.info("Process message created at {}...", event.getEventCreatedAt());
-
-      switch (event.getEventType()) {
-
-        case CREATE:
-          Review review = event.getData();
-          LOG.info("Create review with ID: {}/{}", review.getProductId(), review.getReviewId());
-          reviewService.createReview(review).block();
-          break;
-
-        case DELETE:
-          int productId = event.getKey();
-          LOG.info("Delete reviews with ProductID: {}", productId);
-          reviewService.deleteReviews(productId).block();
-          break;
-
-        default:
-          String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE or DELETE event";
-          LOG.warn(errorMessage);
-          throw new EventProcessingException(errorMessage);
-      }
-
-      LOG.info("Message processing done!");
-    };
+  public Function<Flux<Message<Event<Integer, Review>>>, Mono<Void>> messageProcessor() {
+    EventStreamProcessor<Review> processor = messageConsumerConfig.streamProcessor(this::processEvent);
+
+    return processor::process;
+  }
+
+  public Mono<Void> processEvent(Event<Integer, Review> event) {
+    LOG.info("Process message created at {}...", event.getEventCreatedAt());
+
+    Mono<Void> result;
+    switch (event.getEventType()) {
+      case CREATE:
+        Review review = event.getData();
+        LOG.info("Create review with ID: {}/{}", review.getProductId(), review.getReviewId());
+        result = reviewService.createReview(review).then();
+        break;
+
+      case CREATE_BATCH:
+        LOG.info("Create {} reviews with ProductID: {}", event.getBatch().size(), event.getKey());
+        result = reviewService.createReviews(event.getKey(), event.getBatch()).then();
+        break;
+
+      case DELETE:
+        int productId = event.getKey();
+        LOG.info("Delete reviews with ProductID: {}", productId);
+        result = reviewService.deleteReviews(productId);
+        break;
+
+      default:
+        String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE, CREATE_BATCH or DELETE event";
+        LOG.warn(errorMessage);
+        return Mono.error(new EventProcessingException(errorMessage));
+    }
+
+    return result.doOnSuccess(v -> LOG.info("Message processing done!"));
   }
 }
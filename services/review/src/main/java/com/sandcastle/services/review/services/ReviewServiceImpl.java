@@ -1,7 +1,6 @@
 package com.sandcastle.services.review.services;
 
 import com.sandcastle.api.core.review.Review;
-import com.sandcastle.api.core.review.ReviewService;
 import com.sandcastle.api.exceptions.InvalidInputException;
 import com.sandcastle.common.http.ServiceUtil;
 import com.sandcastle.services.review.entities.ReviewEntity;
@@ -10,19 +9,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
+import static com.sandcastle.common.http.ConditionalRequests.checkNotModified;
+import static com.sandcastle.common.http.ConditionalRequests.weakETag;
 import static java.util.logging.Level.FINE;
 
 
 @RestController
-public class ReviewServiceImpl implements ReviewService {
+@Profile("!r2dbc")
+public class ReviewServiceImpl implements BulkReviewService {
     private static final Logger LOG = LoggerFactory.getLogger(ReviewServiceImpl.class);
 
     private final Scheduler jdbcScheduler;
@@ -33,12 +41,15 @@ public class ReviewServiceImpl implements ReviewService {
 
     private final ServiceUtil serviceUtil;
 
+    private final Tracer tracer;
+
     @Autowired
-    public ReviewServiceImpl(@Qualifier("jdbcScheduler") Scheduler jdbcScheduler, ReviewRepository repository, ReviewMapper mapper, ServiceUtil serviceUtil) {
+    public ReviewServiceImpl(@Qualifier("jdbcScheduler") Scheduler jdbcScheduler, ReviewRepository repository, ReviewMapper mapper, ServiceUtil serviceUtil, Tracer tracer) {
         this.jdbcScheduler = jdbcScheduler;
         this.repository = repository;
         this.mapper = mapper;
         this.serviceUtil = serviceUtil;
+        this.tracer = tracer;
     }
 
 
@@ -48,7 +59,8 @@ public class ReviewServiceImpl implements ReviewService {
         if (body.getProductId() < 1) {
             throw new InvalidInputException("Invalid productId: " + body.getProductId());
         }
-        return Mono.fromCallable(() -> internalCreateReview(body))
+        Span parent = tracer.currentSpan();
+        return Mono.fromCallable(() -> inDatabaseSpan(parent, "insert review", () -> internalCreateReview(body)))
                 .subscribeOn(jdbcScheduler);
     }
 
@@ -65,6 +77,69 @@ public class ReviewServiceImpl implements ReviewService {
         }
     }
 
+    @Override
+    public Flux<Review> createReviews(int productId, List<Review> body) {
+
+        body.forEach(review -> {
+            if (productId < 1 || review.getProductId() != productId) {
+                throw new InvalidInputException("Invalid productId: " + review.getProductId() + ", expected: " + productId);
+            }
+        });
+
+        Span parent = tracer.currentSpan();
+        return Mono.fromCallable(() -> inDatabaseSpan(parent, "insert reviews", () -> internalCreateReviews(productId, body)))
+                .flatMapMany(Flux::fromIterable)
+                .subscribeOn(jdbcScheduler);
+    }
+
+    private List<Review> internalCreateReviews(int productId, List<Review> body) {
+        try {
+            List<Review> newReviews = internalCreateReviews(body);
+
+            LOG.debug("createReviews: created {} review entities for productId: {}", newReviews.size(), productId);
+            return newReviews;
+
+        } catch (DataIntegrityViolationException dive) {
+            throw new InvalidInputException("Duplicate key, Product Id: " + productId + ", in a batch of " + body.size() + " reviews");
+        }
+    }
+
+    @Override
+    public Flux<Review> createReviews(List<Review> body) {
+
+        body.forEach(review -> {
+            if (review.getProductId() < 1) {
+                throw new InvalidInputException("Invalid productId: " + review.getProductId());
+            }
+        });
+
+        Span parent = tracer.currentSpan();
+        return Mono.fromCallable(() -> inDatabaseSpan(parent, "insert reviews", () -> internalCreateReviews(body)))
+                .flatMapMany(Flux::fromIterable)
+                .subscribeOn(jdbcScheduler);
+    }
+
+    // One transaction, the inserts are sent in JDBC batches, see hibernate.jdbc.batch_size
+    private List<Review> internalCreateReviews(List<Review> body) {
+        List<ReviewEntity> newEntities = new ArrayList<>();
+        repository.saveAll(mapper.apiListToEntityList(body)).forEach(newEntities::add);
+
+        return mapper.entityListToApiList(newEntities);
+    }
+
+    // The span of the caller, e.g. the message consumer, is captured before the hop to the jdbcScheduler
+    private <T> T inDatabaseSpan(Span parent, String name, Callable<T> work) throws Exception {
+        Span span = tracer.nextSpan(parent).name(name).tag("db.system", "mysql").start();
+        try (Tracer.SpanInScope ws = tracer.withSpan(span)) {
+            return work.call();
+        } catch (Exception ex) {
+            span.error(ex);
+            throw ex;
+        } finally {
+            span.end();
+        }
+    }
+
     @Override
     public Flux<Review> getReviews(int productId) {
 
@@ -74,15 +149,78 @@ public class ReviewServiceImpl implements ReviewService {
 
         LOG.info("Will get reviews for product with id={}", productId);
 
-        return Mono.fromCallable(() -> internalGetReviews(productId))
+        return checkNotModified(Mono.fromCallable(() -> internalGetReviews(productId))
+                        .flatMapMany(Flux::fromIterable)
+                        .log(LOG.getName(), FINE)
+                        .subscribeOn(jdbcScheduler),
+                reviews -> weakETag(reviews.stream().map(r -> r.getReviewId() + ":" + r.getVersion())));
+    }
+
+    private List<Review> internalGetReviews(int productId) {
+
+        List<ReviewEntity> entityList = repository.findByProductId(productId);
+        List<Review> list = mapper.entityListToApiList(entityList);
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
+
+        LOG.debug("Response size: {}", list.size());
+
+        return list;
+    }
+
+    @Override
+    public Flux<Review> getReviewsForProducts(List<Integer> productIds) {
+
+        productIds.forEach(productId -> {
+            if (productId == null || productId < 1) {
+                throw new InvalidInputException("Invalid productId: " + productId);
+            }
+        });
+
+        LOG.info("Will get reviews for {} products", productIds.size());
+
+        return Mono.fromCallable(() -> internalGetReviewsForProducts(productIds))
                 .flatMapMany(Flux::fromIterable)
                 .log(LOG.getName(), FINE)
                 .subscribeOn(jdbcScheduler);
     }
 
-    private List<Review> internalGetReviews(int productId) {
+    private List<Review> internalGetReviewsForProducts(List<Integer> productIds) {
 
-        List<ReviewEntity> entityList = repository.findByProductId(productId);
+        List<ReviewEntity> entityList = repository.findByProductIdInOrderByProductIdAscReviewIdAsc(productIds);
+        List<Review> list = mapper.entityListToApiList(entityList);
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
+
+        LOG.debug("Response size: {}", list.size());
+
+        return list;
+    }
+
+    @Override
+    public Flux<Review> getReviewsPage(int productId, int cursor, int limit) {
+
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+
+        if (cursor < 0) {
+            throw new InvalidInputException("Invalid cursor: " + cursor);
+        }
+
+        if (limit < 1) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+
+        LOG.info("Will get {} reviews after id={} for product with id={}", limit, cursor, productId);
+
+        return Mono.fromCallable(() -> internalGetReviewsPage(productId, cursor, limit))
+                .flatMapMany(Flux::fromIterable)
+                .log(LOG.getName(), FINE)
+                .subscribeOn(jdbcScheduler);
+    }
+
+    private List<Review> internalGetReviewsPage(int productId, int cursor, int limit) {
+
+        List<ReviewEntity> entityList = repository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(productId, cursor, PageRequest.ofSize(limit));
         List<Review> list = mapper.entityListToApiList(entityList);
         list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
 
@@ -105,6 +243,8 @@ public class ReviewServiceImpl implements ReviewService {
 
         LOG.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
 
-        repository.deleteAll(repository.findByProductId(productId));
+        int count = repository.deleteByProductId(productId);
+
+        LOG.debug("deleteReviews: deleted {} reviews for productId: {}", count, productId);
     }
 }
@@ -0,0 +1,14 @@
+-- The reviews table of ReviewEntity, for the r2dbc profile where Hibernate does not create it.
+-- Hibernate takes the ids of the entities from hibernate_sequence, so only use a database
+-- in one of the modes.
+CREATE TABLE IF NOT EXISTS reviews (
+  id INT NOT NULL AUTO_INCREMENT,
+  version INT NOT NULL,
+  product_id INT NOT NULL,
+  review_id INT NOT NULL,
+  author VARCHAR(255),
+  subject VARCHAR(255),
+  content VARCHAR(255),
+  PRIMARY KEY (id),
+  UNIQUE KEY reviews_unique_idx (product_id, review_id)
+);
@@ -2,6 +2,8 @@ package com.sandcastle.services.review;
 
 import com.sandcastle.api.core.review.Review;
 import com.sandcastle.services.review.entities.ReviewEntity;
+import com.sandcastle.services.review.r2dbc.ReviewR2dbcEntity;
+import com.sandcastle.services.review.r2dbc.ReviewR2dbcMapper;
 import com.sandcastle.services.review.services.ReviewMapper;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
@@ -16,6 +18,8 @@ class MapperTests {
 
   private ReviewMapper mapper = Mappers.getMapper(ReviewMapper.class);
 
+  private ReviewR2dbcMapper r2dbcMapper = Mappers.getMapper(ReviewR2dbcMapper.class);
+
   @Test
   void mapperTests() {
 
@@ -72,4 +76,33 @@ class MapperTests {
     assertEquals(api.getContent(), api2.getContent());
     assertNull(api2.getServiceAddress());
   }
+
+  @Test
+  void r2dbcMapperTests() {
+
+    assertNotNull(r2dbcMapper);
+
+    Review api = new Review(1, 2, "a", "s", "C", "adr");
+
+    ReviewR2dbcEntity entity = r2dbcMapper.apiToEntity(api);
+
+    assertNull(entity.getId());
+    assertNull(entity.getVersion());
+    assertEquals(api.getProductId(), entity.getProductId());
+    assertEquals(api.getReviewId(), entity.getReviewId());
+    assertEquals(api.getAuthor(), entity.getAuthor());
+    assertEquals(api.getSubject(), entity.getSubject());
+    assertEquals(api.getContent(), entity.getContent());
+
+    entity.setVersion(3);
+    Review api2 = r2dbcMapper.entityToApi(entity);
+
+    assertEquals(api.getProductId(), api2.getProductId());
+    assertEquals(api.getReviewId(), api2.getReviewId());
+    assertEquals(api.getAuthor(), api2.getAuthor());
+    assertEquals(api.getSubject(), api2.getSubject());
+    assertEquals(api.getContent(), api2.getContent());
+    assertEquals(3, api2.getVersion());
+    assertNull(api2.getServiceAddress());
+  }
 }
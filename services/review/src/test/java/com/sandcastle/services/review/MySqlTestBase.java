@@ -16,6 +16,9 @@ public abstract class MySqlTestBase {
     registry.add("spring.datasource.url", database::getJdbcUrl);
     registry.add("spring.datasource.username", database::getUsername);
     registry.add("spring.datasource.password", database::getPassword);
+    registry.add("spring.r2dbc.url", () -> "r2dbc:mysql://" + database.getHost() + ":" + database.getFirstMappedPort() + "/" + database.getDatabaseName());
+    registry.add("spring.r2dbc.username", database::getUsername);
+    registry.add("spring.r2dbc.password", database::getPassword);
   }
 
 }
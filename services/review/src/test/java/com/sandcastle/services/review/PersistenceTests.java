@@ -6,8 +6,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cloud.sleuth.autoconfig.brave.BraveAutoConfiguration;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +24,8 @@ import static org.springframework.transaction.annotation.Propagation.NOT_SUPPORT
 @DataJpaTest
 @Transactional(propagation = NOT_SUPPORTED)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// The services of the application are scanned, and ReviewServiceImpl needs a Tracer
+@ImportAutoConfiguration(BraveAutoConfiguration.class)
 class PersistenceTests extends MySqlTestBase {
 
   @Autowired
@@ -68,6 +72,16 @@ class PersistenceTests extends MySqlTestBase {
     assertFalse(repository.existsById(savedEntity.getId()));
   }
 
+  @Test
+  void canDeleteReviewsByProductId() {
+    repository.save(new ReviewEntity(1, 3, "a", "s", "c"));
+    repository.save(new ReviewEntity(2, 1, "a", "s", "c"));
+
+    assertEquals(2, repository.deleteByProductId(1));
+    assertEquals(0, repository.deleteByProductId(1));
+    assertEquals(1, repository.count());
+  }
+
   @Test
   void canGetReviewByProductId() {
     List<ReviewEntity> entityList = repository.findByProductId(savedEntity.getProductId());
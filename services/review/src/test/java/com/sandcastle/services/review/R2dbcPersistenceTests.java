@@ -0,0 +1,144 @@
+package com.sandcastle.services.review;
+
+import com.sandcastle.services.review.r2dbc.ReviewR2dbcEntity;
+import com.sandcastle.services.review.r2dbc.ReviewR2dbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.cloud.sleuth.autoconfig.brave.BraveAutoConfiguration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataR2dbcTest
+@ActiveProfiles("r2dbc")
+// The services of the application are scanned, and ReviewServiceImpl needs a Tracer
+@ImportAutoConfiguration(BraveAutoConfiguration.class)
+class R2dbcPersistenceTests extends MySqlTestBase {
+
+  @Autowired
+  private ReviewR2dbcRepository repository;
+
+  private ReviewR2dbcEntity savedEntity;
+
+  @BeforeEach
+  void setupDb() {
+    StepVerifier.create(repository.deleteAll()).verifyComplete();
+
+    ReviewR2dbcEntity entity = new ReviewR2dbcEntity(1, 2, "a", "s", "c");
+    StepVerifier.create(repository.save(entity))
+      .expectNextMatches(createdEntity -> {
+        savedEntity = createdEntity;
+        return areReviewEqual(entity, savedEntity);
+      })
+      .verifyComplete();
+  }
+
+  @Test
+  void canCreateReview() {
+
+    ReviewR2dbcEntity newEntity = new ReviewR2dbcEntity(1, 3, "a", "s", "c");
+
+    StepVerifier.create(repository.save(newEntity))
+      .expectNextMatches(createdEntity -> newEntity.getReviewId() == createdEntity.getReviewId())
+      .verifyComplete();
+
+    StepVerifier.create(repository.findById(newEntity.getId()))
+      .expectNextMatches(foundEntity -> areReviewEqual(newEntity, foundEntity))
+      .verifyComplete();
+
+    StepVerifier.create(repository.count()).expectNext(2L).verifyComplete();
+  }
+
+  @Test
+  void canUpdateReview() {
+    savedEntity.setAuthor("a2");
+    StepVerifier.create(repository.save(savedEntity))
+      .expectNextMatches(updatedEntity -> updatedEntity.getAuthor().equals("a2"))
+      .verifyComplete();
+
+    StepVerifier.create(repository.findById(savedEntity.getId()))
+      .expectNextMatches(foundEntity -> foundEntity.getVersion() == 1 && foundEntity.getAuthor().equals("a2"))
+      .verifyComplete();
+  }
+
+  @Test
+  void canGetReviewsInPages() {
+    StepVerifier.create(repository.saveAll(List.of(
+        new ReviewR2dbcEntity(1, 3, "a", "s", "c"),
+        new ReviewR2dbcEntity(1, 4, "a", "s", "c"),
+        new ReviewR2dbcEntity(2, 1, "a", "s", "c"))))
+      .expectNextCount(3)
+      .verifyComplete();
+
+    StepVerifier.create(repository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(1, 2, PageRequest.ofSize(1)))
+      .expectNextMatches(foundEntity -> foundEntity.getReviewId() == 3)
+      .verifyComplete();
+
+    StepVerifier.create(repository.findByProductIdInOrderByProductIdAscReviewIdAsc(List.of(1, 2)))
+      .expectNextCount(4)
+      .verifyComplete();
+  }
+
+  @Test
+  void canDeleteReview() {
+    StepVerifier.create(repository.delete(savedEntity)).verifyComplete();
+    StepVerifier.create(repository.existsById(savedEntity.getId())).expectNext(false).verifyComplete();
+  }
+
+  @Test
+  void canDeleteReviewsByProductId() {
+    StepVerifier.create(repository.save(new ReviewR2dbcEntity(2, 1, "a", "s", "c"))).expectNextCount(1).verifyComplete();
+
+    StepVerifier.create(repository.deleteByProductId(1)).expectNext(1).verifyComplete();
+    StepVerifier.create(repository.deleteByProductId(1)).expectNext(0).verifyComplete();
+    StepVerifier.create(repository.count()).expectNext(1L).verifyComplete();
+  }
+
+  @Test
+  void errorsOnDuplicateKey() {
+    ReviewR2dbcEntity entity = new ReviewR2dbcEntity(1, 2, "a", "s", "c");
+    StepVerifier.create(repository.save(entity)).expectError(DataIntegrityViolationException.class).verify();
+  }
+
+  @Test
+  void usesOptimisticLockError() {
+
+    // Store the saved entity in two separate entity objects
+    ReviewR2dbcEntity entity1 = repository.findById(savedEntity.getId()).block();
+    ReviewR2dbcEntity entity2 = repository.findById(savedEntity.getId()).block();
+
+    // Update the entity using the first entity object
+    entity1.setAuthor("a1");
+    repository.save(entity1).block();
+
+    // Update the entity using the second entity object.
+    // This should fail since the second entity now holds an old version number, i.e. an Optimistic Lock Error
+    entity2.setAuthor("a2");
+    StepVerifier.create(repository.save(entity2)).expectError(OptimisticLockingFailureException.class).verify();
+
+    // Get the updated entity from the database and verify its new sate
+    StepVerifier.create(repository.findById(savedEntity.getId()))
+      .expectNextMatches(foundEntity -> foundEntity.getVersion() == 1 && foundEntity.getAuthor().equals("a1"))
+      .verifyComplete();
+  }
+
+  private boolean areReviewEqual(ReviewR2dbcEntity expectedEntity, ReviewR2dbcEntity actualEntity) {
+    assertEquals(expectedEntity.getId(),        actualEntity.getId());
+    assertEquals(expectedEntity.getVersion(),   actualEntity.getVersion());
+    assertEquals(expectedEntity.getProductId(), actualEntity.getProductId());
+    assertEquals(expectedEntity.getReviewId(),  actualEntity.getReviewId());
+    assertEquals(expectedEntity.getAuthor(),    actualEntity.getAuthor());
+    assertEquals(expectedEntity.getSubject(),   actualEntity.getSubject());
+    assertEquals(expectedEntity.getContent(),   actualEntity.getContent());
+    return true;
+  }
+}
@@ -4,15 +4,22 @@ import com.sandcastle.api.core.review.Review;
 import com.sandcastle.api.event.Event;
 import com.sandcastle.api.exceptions.InvalidInputException;
 import com.sandcastle.services.review.repositories.ReviewRepository;
+import com.sandcastle.services.review.services.MessageProcessorConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.function.Consumer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
 
 import static com.sandcastle.api.event.Event.Type.CREATE;
 import static com.sandcastle.api.event.Event.Type.DELETE;
@@ -35,7 +42,10 @@ class ReviewApplicationTests extends MySqlTestBase{
 
 	@Autowired
 	@Qualifier("messageProcessor")
-	private Consumer<Event<Integer, Review>> messageProcessor;
+	private Function<Flux<Message<Event<Integer, Review>>>, Mono<Void>> messageProcessor;
+
+	@Autowired
+	private MessageProcessorConfig messageProcessorConfig;
 
 	@BeforeEach
 	void setupDb() {
@@ -61,6 +71,40 @@ class ReviewApplicationTests extends MySqlTestBase{
 				.jsonPath("$[2].reviewId").isEqualTo(3);
 	}
 
+	@Test
+	void getReviewsByProductIds() {
+
+		sendCreateReviewEvent(2, 1);
+		sendCreateReviewEvent(1, 2);
+		sendCreateReviewEvent(1, 1);
+		sendCreateReviewEvent(3, 1);
+
+		getAndVerifyReviewsByProductId("?productIds=1,2", OK)
+				.jsonPath("$.length()").isEqualTo(3)
+				.jsonPath("$[0].productId").isEqualTo(1)
+				.jsonPath("$[0].reviewId").isEqualTo(1)
+				.jsonPath("$[1].productId").isEqualTo(1)
+				.jsonPath("$[1].reviewId").isEqualTo(2)
+				.jsonPath("$[2].productId").isEqualTo(2);
+	}
+
+	@Test
+	void getReviewsPage() {
+
+		sendCreateReviewEvent(1, 1);
+		sendCreateReviewEvent(1, 2);
+		sendCreateReviewEvent(1, 3);
+		sendCreateReviewEvent(2, 1);
+
+		getAndVerifyReviewsByProductId("?productId=1&cursor=1&limit=1", OK)
+				.jsonPath("$.length()").isEqualTo(1)
+				.jsonPath("$[0].productId").isEqualTo(1)
+				.jsonPath("$[0].reviewId").isEqualTo(2);
+
+		getAndVerifyReviewsByProductId("?productId=1&cursor=3&limit=10", OK)
+				.jsonPath("$.length()").isEqualTo(0);
+	}
+
 	@Test
 	void duplicateError() {
 
@@ -75,13 +119,31 @@ class ReviewApplicationTests extends MySqlTestBase{
 
 		InvalidInputException thrown = assertThrows(
 				InvalidInputException.class,
-				() -> sendCreateReviewEvent(productId, reviewId),
+				() -> messageProcessorConfig.processEvent(createReviewEvent(productId, reviewId)).block(),
 				"Expected a InvalidInputException here!");
 		assertEquals("Duplicate key, Product Id: 1, Review Id:1", thrown.getMessage());
 
 		assertEquals(1, repository.count());
 	}
 
+	@Test
+	void createReviewsBatch() {
+
+		int productId = 1;
+
+		List<Review> reviews = new ArrayList<>();
+		for (int reviewId = 1; reviewId <= 3; reviewId++) {
+			reviews.add(new Review(productId, reviewId, "Author " + reviewId, "Subject " + reviewId, "Content " + reviewId, "SA"));
+		}
+		sendEvent(Event.batch(productId, reviews));
+
+		assertEquals(3, repository.findByProductId(productId).size());
+
+		getAndVerifyReviewsByProductId(productId, OK)
+				.jsonPath("$.length()").isEqualTo(3)
+				.jsonPath("$[2].reviewId").isEqualTo(3);
+	}
+
 	@Test
 	void deleteReviews() {
 
@@ -145,14 +207,21 @@ class ReviewApplicationTests extends MySqlTestBase{
 	}
 
 	private void sendCreateReviewEvent(int productId, int reviewId) {
+		sendEvent(createReviewEvent(productId, reviewId));
+	}
+
+	private Event<Integer, Review> createReviewEvent(int productId, int reviewId) {
 		Review review = new Review(productId, reviewId, "Author " + reviewId, "Subject " + reviewId, "Content " + reviewId, "SA");
-		Event<Integer, Review> event = new Event(CREATE, productId, review);
-		messageProcessor.accept(event);
+		return new Event(CREATE, productId, review);
 	}
 
 	private void sendDeleteReviewEvent(int productId) {
 		Event<Integer, Review> event = new Event(DELETE, productId, null);
-		messageProcessor.accept(event);
+		sendEvent(event);
+	}
+
+	private void sendEvent(Event<Integer, Review> event) {
+		messageProcessor.apply(Flux.just(MessageBuilder.withPayload(event).build())).block();
 	}
 
 }